@@ -14,6 +14,7 @@ import net.highwayfrogs.editor.file.packers.PP20Packer;
 import net.highwayfrogs.editor.file.packers.PP20Unpacker;
 import net.highwayfrogs.editor.file.reader.ArraySource;
 import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.file.vlo.BulkImageExporter;
 import net.highwayfrogs.editor.file.vlo.VLOArchive;
 import net.highwayfrogs.editor.file.writer.ArrayReceiver;
 import net.highwayfrogs.editor.file.writer.DataWriter;
@@ -132,14 +133,21 @@ public class WADFile extends GameFile {
             if (!folder.exists())
                 folder.mkdirs();
 
-            if (vlo != null)
-                vlo.exportAllImages(folder, MOFFile.MOF_EXPORT_FILTER);
-
-            setVLO(vlo);
-            for (WADEntry wadEntry : getFiles()) {
-                GameFile file = wadEntry.getFile();
-                if (file instanceof MOFHolder)
-                    ((MOFHolder) file).exportObject(folder, vlo);
+            // The textures are encoded in the background while the models are exported.
+            BulkImageExporter exporter = vlo != null ? new BulkImageExporter() : null;
+            try {
+                if (exporter != null)
+                    vlo.exportAllImages(folder, MOFFile.MOF_EXPORT_FILTER, exporter);
+
+                setVLO(vlo);
+                for (WADEntry wadEntry : getFiles()) {
+                    GameFile file = wadEntry.getFile();
+                    if (file instanceof MOFHolder)
+                        ((MOFHolder) file).exportObject(folder, vlo);
+                }
+            } finally {
+                if (exporter != null)
+                    exporter.finish();
             }
         }, true);
     }
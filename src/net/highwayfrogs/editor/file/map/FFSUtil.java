@@ -325,6 +325,7 @@ public class FFSUtil {
                 fullPolygonList.add(newPolygon);
             }
         }
+        map.markPolygonsChanged();
         System.out.println("Imported " + inputFile.getName() + " as " + map.getFileEntry().getDisplayName() + ".");
     }
 }
\ No newline at end of file
@@ -35,6 +35,8 @@ import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
 import net.highwayfrogs.editor.file.vlo.VLOArchive;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.gui.editor.MAPController;
+import net.highwayfrogs.editor.system.IdentityIntMap;
+import net.highwayfrogs.editor.system.IntObjectMap;
 import net.highwayfrogs.editor.utils.Utils;
 
 import java.util.*;
@@ -75,12 +77,13 @@ public class MAPFile extends GameFile {
 
     private transient VLOArchive vlo;
     private transient Map<MAPPrimitiveType, List<MAPPrimitive>> polygons = new HashMap<>();
-    private transient List<MAPPolygon> allPolygons = new ArrayList<>();
+    private transient List<MAPPolygon> allPolygons; // Cached until polygons are added, removed, or reordered.
+    private transient int allPolygonsPrimitiveCount; // The number of primitives when allPolygons was made. Catches unreported changes which add or remove polygons, but not ones which replace them.
+    private transient MAPPolygonTree polygonTree;
 
-    private transient Map<Integer, MAPPrimitive> loadPointerPolygonMap = new HashMap<>();
-
-    private transient Map<MAPPrimitive, Integer> savePolygonPointerMap = new HashMap<>();
-    private transient Map<Integer, MAPPrimitive> savePointerPolygonMap = new HashMap<>();
+    private transient IntObjectMap<MAPPrimitive> loadPointerPolygonMap = new IntObjectMap<>(); // Cleared instead of remade, so loading again reuses the space.
+    private transient IdentityIntMap<MAPPrimitive> loadPolygonIndexMap = new IdentityIntMap<>(); // The index of each loaded primitive in the list of its type.
+    private transient IdentityIntMap<MAPPrimitive> savePolygonPointerMap = new IdentityIntMap<>();
 
     public static final int TYPE_ID = 0;
     private static final String SIGNATURE = "FROG";
@@ -162,22 +165,86 @@ public class MAPFile extends GameFile {
      * @param selectedFace The face to remove.
      */
     public void removeFace(MAPPolygon selectedFace) {
-        getPolygons().get(selectedFace.getType()).remove(selectedFace);
+        removeFaces(Collections.singletonList(selectedFace));
+    }
+
+    /**
+     * Removes faces from this MAPFile, along with their animation uvs, grid squares, and any vertices which are no longer used.
+     * Every list is only gone through once, no matter how many faces are removed, so removing lots of faces at once is much faster than removing them one at a time.
+     * @param faces The faces to remove.
+     */
+    public void removeFaces(Collection<MAPPolygon> faces) {
+        if (faces.isEmpty())
+            return;
+
+        Set<MAPPrimitive> removeFaces = Collections.newSetFromMap(new IdentityHashMap<>());
+        removeFaces.addAll(faces);
+        for (List<MAPPrimitive> primList : getPolygons().values())
+            primList.removeIf(removeFaces::contains);
+        markPolygonsChanged();
 
         // Remove MapUV animations.
         for (MAPAnimation animation : getMapAnimations())
-            animation.getMapUVs().removeIf(uv -> uv.getPolygon() == selectedFace);
+            animation.getMapUVs().removeIf(uv -> removeFaces.contains(uv.getPolygon()));
 
         // Remove Grid data.
         for (GridStack stack : getGridStacks())
-            stack.getGridSquares().removeIf(square -> square.getPolygon() == selectedFace);
+            stack.getGridSquares().removeIf(square -> removeFaces.contains(square.getPolygon()));
+
+        // Remove vertices which only the removed faces used.
+        int[] useCounts = getVertexUseCounts();
+        boolean[] removeVertices = new boolean[this.vertexes.size()];
+        boolean anyRemoved = false;
+        for (MAPPolygon face : faces) {
+            for (int i = 0; i < face.getVerticeCount(); i++) {
+                int vertex = face.getVertices()[i];
+                if (vertex >= 0 && vertex < useCounts.length && useCounts[vertex] == 0) {
+                    removeVertices[vertex] = true;
+                    anyRemoved = true;
+                }
+            }
+        }
+
+        if (anyRemoved)
+            removeVertices(removeVertices);
+    }
+
+    /**
+     * Gets the number of times each vertex is used by a primitive.
+     * @return useCounts, indexed by vertex id.
+     */
+    public int[] getVertexUseCounts() {
+        int[] useCounts = new int[this.vertexes.size()];
+        for (List<MAPPrimitive> primList : getPolygons().values())
+            for (MAPPrimitive prim : primList)
+                for (int i = 0; i < prim.getVerticeCount(); i++)
+                    if (prim.getVertices()[i] >= 0 && prim.getVertices()[i] < useCounts.length)
+                        useCounts[prim.getVertices()[i]]++;
+        return useCounts;
+    }
 
-        // Remove unused vertices.
-        for (int i = 0; i < selectedFace.getVerticeCount(); i++) {
-            int vertex = selectedFace.getVertices()[i];
-            if (!isVerticeUsed(vertex))
-                removeVertice(vertex);
+    /**
+     * Remove many vertices at once. The vertices after each removed vertex are moved down, and every primitive is updated in a single pass.
+     * Primitives should not be using the removed vertices.
+     * @param removeVertices Whether or not to remove each vertex, indexed by vertex id.
+     */
+    public void removeVertices(boolean[] removeVertices) {
+        int[] remap = new int[this.vertexes.size()];
+        List<SVector> keptVertices = new ArrayList<>(this.vertexes.size());
+        for (int i = 0; i < remap.length; i++) {
+            remap[i] = keptVertices.size();
+            if (i >= removeVertices.length || !removeVertices[i])
+                keptVertices.add(this.vertexes.get(i));
         }
+
+        this.vertexes.clear();
+        this.vertexes.addAll(keptVertices);
+        this.polygonTree = null; // The tree knows polygons by vertex id, and those have changed.
+        for (List<MAPPrimitive> primList : getPolygons().values())
+            for (MAPPrimitive prim : primList)
+                for (int i = 0; i < prim.getVerticeCount(); i++)
+                    if (prim.getVertices()[i] >= 0 && prim.getVertices()[i] < remap.length)
+                        prim.getVertices()[i] = remap[prim.getVertices()[i]];
     }
 
     /**
@@ -219,6 +286,7 @@ public class MAPFile extends GameFile {
      */
     public void removeVertice(int vertice) {
         this.vertexes.remove(vertice);
+        this.polygonTree = null; // The tree knows polygons by vertex id, and those have changed.
         for (List<MAPPrimitive> primList : getPolygons().values())
             for (MAPPrimitive prim : primList)
                 for (int i = 0; i < prim.getVerticeCount(); i++)
@@ -230,6 +298,7 @@ public class MAPFile extends GameFile {
     public void load(DataReader reader) {
         boolean isQB = isQB();
         getLoadPointerPolygonMap().clear();
+        getLoadPolygonIndexMap().clear();
 
         reader.verifyString(SIGNATURE);
         reader.skipInt(); // File length.
@@ -389,6 +458,7 @@ public class MAPFile extends GameFile {
                 for (int i = 0; i < polyCount; i++) {
                     MAPPrimitive primitive = type.newPrimitive();
                     getLoadPointerPolygonMap().put(reader.getIndex(), primitive);
+                    getLoadPolygonIndexMap().put(primitive, primitives.size());
                     primitive.load(reader);
                     primitives.add(primitive);
                 }
@@ -399,6 +469,7 @@ public class MAPFile extends GameFile {
 
         for (MAPGroup group : loadGroups)
             group.setupPolygonData(this, getPolygons());
+        markPolygonsChanged();
 
         // Read Vertexes.
         reader.setIndex(vertexAddress);
@@ -463,7 +534,6 @@ public class MAPFile extends GameFile {
 
     @Override
     public void save(DataWriter writer) {
-        getSavePointerPolygonMap().clear();
         getSavePolygonPointerMap().clear();
 
         // Write File Header
@@ -622,6 +692,7 @@ public class MAPFile extends GameFile {
             for (Entry<MAPPrimitiveType, List<MAPPrimitive>> entry : group.getPolygonMap().entrySet())
                 getPolygons().get(entry.getKey()).addAll(entry.getValue());
         });
+        markPolygonsChanged();
 
         tempAddress = writer.getIndex();
         writer.jumpTemp(groupAddress);
@@ -672,9 +743,7 @@ public class MAPFile extends GameFile {
             writer.jumpReturn();
 
             for (MAPPrimitive prim : getPolygons().get(type)) {
-                Integer index = writer.getIndex();
-                getSavePointerPolygonMap().put(index, prim);
-                getSavePolygonPointerMap().put(prim, index);
+                getSavePolygonPointerMap().put(prim, writer.getIndex());
                 prim.save(writer);
             }
         }
@@ -916,30 +985,70 @@ public class MAPFile extends GameFile {
 
     /**
      * Gets all of the polygons in this map, in a list.
+     * The list is kept until polygons are added, removed, or reordered, so this can be called often. It cannot be modified.
      * @return allPolygons
      */
     public List<MAPPolygon> getAllPolygons() {
-        this.allPolygons.clear();
+        int primitiveCount = 0;
+        for (List<MAPPrimitive> list : getPolygons().values())
+            primitiveCount += list.size();
+
+        if (this.allPolygons != null && primitiveCount == this.allPolygonsPrimitiveCount)
+            return this.allPolygons;
+
+        if (this.allPolygons != null) // Polygons were added or removed without markPolygonsChanged().
+            markPolygonsChanged();
+
+        List<MAPPolygon> polyList = new ArrayList<>(primitiveCount);
         for (List<MAPPrimitive> list : getPolygons().values())
             for (MAPPrimitive prim : list)
                 if (prim instanceof MAPPolygon)
-                    this.allPolygons.add((MAPPolygon) prim);
+                    polyList.add((MAPPolygon) prim);
+
+        this.allPolygons = Collections.unmodifiableList(polyList);
+        this.allPolygonsPrimitiveCount = primitiveCount;
         return this.allPolygons;
     }
 
     /**
-     * Gets all of the polygons in this map, in a list.
+     * Gets all of the polygons in this map, in a list which can be modified.
      * @return allPolygons
      */
     public List<MAPPolygon> getAllPolygonsSafe() {
-        List<MAPPolygon> polyList = new ArrayList<>();
-        for (List<MAPPrimitive> list : getPolygons().values())
-            for (MAPPrimitive prim : list)
-                if (prim instanceof MAPPolygon)
-                    polyList.add((MAPPolygon) prim);
+        return new ArrayList<>(getAllPolygons());
+    }
+
+    /**
+     * Gets all of the polygons in this map, ordered by getOrderId, which groups polygons with the same texture together.
+     * This is made each time, since order ids change with textures, which isn't a change to the polygon lists.
+     * @return orderedPolygons
+     */
+    public List<MAPPolygon> getPolygonsByOrder() {
+        List<MAPPolygon> polyList = getAllPolygonsSafe();
+        polyList.sort(Comparator.comparingInt(MAPPolygon::getOrderId));
         return polyList;
     }
 
+    /**
+     * This should be called after polygons are added to, removed from, or reordered in getPolygons(), so cached polygon lists and the polygon tree are made again.
+     * If this isn't called, a change is only noticed when the number of polygons changes. Replacing polygons with the same number of others, or reordering them, is not noticed.
+     */
+    public void markPolygonsChanged() {
+        this.allPolygons = null;
+        this.polygonTree = null;
+    }
+
+    /**
+     * Gets the tree used to find polygons by position. It is made the first time it's needed after polygons change.
+     * If vertices move, the tree should be refit with MAPPolygonTree.refitVertex or refit.
+     * @return polygonTree
+     */
+    public MAPPolygonTree getPolygonTree() {
+        if (this.polygonTree == null || this.polygonTree.getPolygonCount() != getAllPolygons().size())
+            this.polygonTree = new MAPPolygonTree(this);
+        return this.polygonTree;
+    }
+
     /**
      * Recalculate map groups.
      */
@@ -953,15 +1062,22 @@ public class MAPFile extends GameFile {
             if (!poly.isAllowDisplay())
                 continue;
 
-            SVector vertex = getVertexes().get(poly.getVertices()[poly.getVerticeCount() - 1]);
-            int groupX = getGroupX(vertex.getX());
-            int groupZ = getGroupZ(vertex.getZ());
-            groups.get(getGroupIndex(groupX, groupZ)).getPolygonMap().get(poly.getType()).add(poly);
+            groups.get(getPolygonGroup(poly)).getPolygonMap().get(poly.getType()).add(poly);
         }
 
         return groups;
     }
 
+    /**
+     * Gets the index of the group a polygon belongs to. The game puts polygons into the group their last vertex is in.
+     * @param poly The polygon to get the group of.
+     * @return groupIndex
+     */
+    public int getPolygonGroup(MAPPolygon poly) {
+        SVector vertex = getVertexes().get(poly.getVertices()[poly.getVerticeCount() - 1]);
+        return getGroupIndex(getGroupX(vertex.getX()), getGroupZ(vertex.getZ()));
+    }
+
     /**
      * Checks if this map is a multiplayer map.
      * Unfortunately, nothing distinguishes the map files besides where you can access them from and the names.
@@ -980,6 +1096,18 @@ public class MAPFile extends GameFile {
         return getFileEntry().getDisplayName().contains("_WIN95");
     }
 
+    /**
+     * Gets the low-poly version of this map, which the PC version uses in low detail mode.
+     * @return lowPolyMap, or null if there isn't one.
+     */
+    public MAPFile getLowPolyMap() {
+        if (isLowPolyMode())
+            return null;
+
+        String name = getFileEntry().getDisplayName();
+        return getMWD().resolveForEachFile(MAPFile.class, map -> map.isLowPolyMode() && Utils.stripWin95(map.getFileEntry().getDisplayName()).equals(name) ? map : null);
+    }
+
     /**
      * Tests if this is the QB map.
      * @return isQBMap
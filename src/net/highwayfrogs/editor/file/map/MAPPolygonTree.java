@@ -0,0 +1,618 @@
+package net.highwayfrogs.editor.file.map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolygon;
+import net.highwayfrogs.editor.file.standard.SVector;
+import net.highwayfrogs.editor.system.IdentityIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bounding volume hierarchy over the polygons of a map, for finding polygons by position without testing every polygon.
+ * Supports ray casts, nearest polygon searches, and box searches. Positions are in world space, as floats, the same as the 3D view.
+ * When vertices move, the boxes can be refit without rebuilding the tree. If polygons are added or removed, a new tree should be made.
+ * This does not use JavaFX, so it works without the editor open.
+ */
+public class MAPPolygonTree {
+    private final MAPFile map;
+    private final MAPPolygon[] polygons; // Ordered so the polygons of each leaf are next to each other.
+    private final float[] polygonBounds; // The min x, y, z and max x, y, z of each polygon.
+    private final int[] polygonLeaves; // The leaf node which holds each polygon.
+    private final IdentityIntMap<MAPPolygon> polygonIndices;
+    private int[] vertexPolygonStarts; // The polygons using each vertex are vertexPolygons[vertexPolygonStarts[vertex]] to vertexPolygons[vertexPolygonStarts[vertex + 1]].
+    private int[] vertexPolygons;
+
+    private float[] nodeBounds = new float[6 * 16];
+    private int[] nodeLeft = new int[16]; // -1 for leaves.
+    private int[] nodeRight = new int[16];
+    private int[] nodeParent = new int[16];
+    private int[] nodeStart = new int[16];
+    private int[] nodeCount = new int[16]; // Zero unless the node is a leaf.
+    @Getter private int nodeTotal;
+
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int MAX_DEPTH = 64;
+    private static final float EPSILON = 1E-7F;
+
+    public MAPPolygonTree(MAPFile map) {
+        this.map = map;
+        List<MAPPolygon> mapPolygons = map.getAllPolygons();
+        this.polygons = mapPolygons.toArray(new MAPPolygon[0]);
+        this.polygonBounds = new float[this.polygons.length * 6];
+        this.polygonLeaves = new int[this.polygons.length];
+        this.polygonIndices = new IdentityIntMap<>(this.polygons.length);
+        build();
+    }
+
+    /**
+     * Gets the number of polygons in the tree.
+     * @return polygonCount
+     */
+    public int getPolygonCount() {
+        return this.polygons.length;
+    }
+
+    /**
+     * Test if a polygon is in this tree.
+     * @param polygon The polygon to test.
+     * @return containsPolygon
+     */
+    public boolean containsPolygon(MAPPolygon polygon) {
+        return this.polygonIndices.containsKey(polygon);
+    }
+
+    private void build() {
+        float[] centers = new float[this.polygons.length * 3];
+        for (int i = 0; i < this.polygons.length; i++) {
+            calculatePolygonBounds(this.polygons[i], this.polygonBounds, i * 6);
+            for (int axis = 0; axis < 3; axis++)
+                centers[(i * 3) + axis] = (this.polygonBounds[(i * 6) + axis] + this.polygonBounds[(i * 6) + axis + 3]) / 2;
+        }
+
+        int[] order = new int[this.polygons.length];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+
+        if (order.length > 0)
+            buildNode(order, centers, 0, order.length, -1, 0);
+
+        // Put the polygons in leaf order, so a leaf's polygons are next to each other.
+        MAPPolygon[] oldPolygons = this.polygons.clone();
+        float[] oldBounds = this.polygonBounds.clone();
+        for (int i = 0; i < order.length; i++) {
+            this.polygons[i] = oldPolygons[order[i]];
+            System.arraycopy(oldBounds, order[i] * 6, this.polygonBounds, i * 6, 6);
+            this.polygonIndices.put(this.polygons[i], i);
+        }
+
+        for (int node = 0; node < this.nodeTotal; node++)
+            for (int i = 0; i < this.nodeCount[node]; i++)
+                this.polygonLeaves[this.nodeStart[node] + i] = node;
+
+        buildVertexPolygons();
+    }
+
+    private int buildNode(int[] order, float[] centers, int start, int end, int parent, int depth) {
+        int node = allocateNode(parent);
+        resetBounds(this.nodeBounds, node * 6);
+        float[] centerBounds = new float[6];
+        resetBounds(centerBounds, 0);
+        for (int i = start; i < end; i++) {
+            includeBounds(this.nodeBounds, node * 6, this.polygonBounds, order[i] * 6);
+            for (int axis = 0; axis < 3; axis++) {
+                float center = centers[(order[i] * 3) + axis];
+                centerBounds[axis] = Math.min(centerBounds[axis], center);
+                centerBounds[axis + 3] = Math.max(centerBounds[axis + 3], center);
+            }
+        }
+
+        // Split along the longest axis, at the median.
+        int axis = 0;
+        for (int i = 1; i < 3; i++)
+            if (centerBounds[i + 3] - centerBounds[i] > centerBounds[axis + 3] - centerBounds[axis])
+                axis = i;
+
+        if (end - start <= MAX_LEAF_SIZE || depth >= MAX_DEPTH - 1 || centerBounds[axis + 3] <= centerBounds[axis]) {
+            this.nodeStart[node] = start;
+            this.nodeCount[node] = end - start;
+            return node;
+        }
+
+        int middle = (start + end) >>> 1;
+        selectNth(order, centers, axis, start, end - 1, middle);
+        int left = buildNode(order, centers, start, middle, node, depth + 1);
+        int right = buildNode(order, centers, middle, end, node, depth + 1);
+        this.nodeLeft[node] = left; // Set after building the children, since building them can replace the arrays.
+        this.nodeRight[node] = right;
+        return node;
+    }
+
+    private int allocateNode(int parent) {
+        int node = this.nodeTotal++;
+        if (node >= this.nodeLeft.length) {
+            int newLength = this.nodeLeft.length * 2;
+            this.nodeBounds = Arrays.copyOf(this.nodeBounds, newLength * 6);
+            this.nodeLeft = Arrays.copyOf(this.nodeLeft, newLength);
+            this.nodeRight = Arrays.copyOf(this.nodeRight, newLength);
+            this.nodeParent = Arrays.copyOf(this.nodeParent, newLength);
+            this.nodeStart = Arrays.copyOf(this.nodeStart, newLength);
+            this.nodeCount = Arrays.copyOf(this.nodeCount, newLength);
+        }
+
+        this.nodeParent[node] = parent;
+        this.nodeLeft[node] = -1;
+        this.nodeRight[node] = -1;
+        this.nodeCount[node] = 0;
+        return node;
+    }
+
+    private static void selectNth(int[] order, float[] centers, int axis, int left, int right, int n) {
+        // Quickselect, so everything before n has a center less than or equal to everything after it.
+        while (right > left) {
+            float pivot = centers[(order[(left + right) >>> 1] * 3) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (centers[(order[i] * 3) + axis] < pivot)
+                    i++;
+                while (centers[(order[j] * 3) + axis] > pivot)
+                    j--;
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = temp;
+                }
+            }
+
+            if (n <= j) {
+                right = j;
+            } else if (n >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void buildVertexPolygons() {
+        int vertexCount = this.map.getVertexes().size();
+        this.vertexPolygonStarts = new int[vertexCount + 1];
+        for (MAPPolygon poly : this.polygons)
+            for (int i = 0; i < poly.getVerticeCount(); i++)
+                this.vertexPolygonStarts[poly.getVertices()[i] + 1]++;
+
+        for (int i = 0; i < vertexCount; i++)
+            this.vertexPolygonStarts[i + 1] += this.vertexPolygonStarts[i];
+
+        int[] positions = Arrays.copyOf(this.vertexPolygonStarts, vertexCount);
+        this.vertexPolygons = new int[this.vertexPolygonStarts[vertexCount]];
+        for (int i = 0; i < this.polygons.length; i++)
+            for (int j = 0; j < this.polygons[i].getVerticeCount(); j++)
+                this.vertexPolygons[positions[this.polygons[i].getVertices()[j]]++] = i;
+    }
+
+    /**
+     * Update the boxes of the polygons using a vertex, after the vertex has moved.
+     * @param vertexId The index of the vertex which moved.
+     */
+    public void refitVertex(int vertexId) {
+        if (vertexId < 0 || vertexId >= this.vertexPolygonStarts.length - 1) {
+            refit(); // The vertex wasn't there when the tree was made.
+            return;
+        }
+
+        for (int i = this.vertexPolygonStarts[vertexId]; i < this.vertexPolygonStarts[vertexId + 1]; i++)
+            refitPolygon(this.vertexPolygons[i]);
+    }
+
+    /**
+     * Update the box of a polygon, after its vertices have moved or changed.
+     * @param polygon The polygon to update.
+     */
+    public void refitPolygon(MAPPolygon polygon) {
+        int index = this.polygonIndices.get(polygon, -1);
+        if (index != -1)
+            refitPolygon(index);
+    }
+
+    private void refitPolygon(int index) {
+        calculatePolygonBounds(this.polygons[index], this.polygonBounds, index * 6);
+
+        // Update each node above the polygon, until one doesn't change.
+        int node = this.polygonLeaves[index];
+        while (node != -1 && updateNodeBounds(node))
+            node = this.nodeParent[node];
+    }
+
+    /**
+     * Update the boxes of every polygon and node, after many vertices have moved.
+     */
+    public void refit() {
+        for (int i = 0; i < this.polygons.length; i++)
+            calculatePolygonBounds(this.polygons[i], this.polygonBounds, i * 6);
+
+        // Children are always made after their parent, so going backwards updates children first.
+        for (int node = this.nodeTotal - 1; node >= 0; node--)
+            updateNodeBounds(node);
+    }
+
+    private boolean updateNodeBounds(int node) {
+        float[] oldBounds = Arrays.copyOfRange(this.nodeBounds, node * 6, (node * 6) + 6);
+        resetBounds(this.nodeBounds, node * 6);
+        if (this.nodeCount[node] > 0) {
+            for (int i = 0; i < this.nodeCount[node]; i++)
+                includeBounds(this.nodeBounds, node * 6, this.polygonBounds, (this.nodeStart[node] + i) * 6);
+        } else {
+            includeBounds(this.nodeBounds, node * 6, this.nodeBounds, this.nodeLeft[node] * 6);
+            includeBounds(this.nodeBounds, node * 6, this.nodeBounds, this.nodeRight[node] * 6);
+        }
+
+        for (int i = 0; i < oldBounds.length; i++)
+            if (oldBounds[i] != this.nodeBounds[(node * 6) + i])
+                return true;
+        return false;
+    }
+
+    /**
+     * Find the first polygon a ray hits. Both sides of polygons are hit.
+     * @param originX     The x position the ray starts at.
+     * @param originY     The y position the ray starts at.
+     * @param originZ     The z position the ray starts at.
+     * @param dirX        The x direction of the ray.
+     * @param dirY        The y direction of the ray.
+     * @param dirZ        The z direction of the ray.
+     * @param maxDistance The furthest distance to look, in lengths of the direction.
+     * @return hit, or null if nothing was hit.
+     */
+    public RayHit raycast(float originX, float originY, float originZ, float dirX, float dirY, float dirZ, float maxDistance) {
+        if (this.nodeTotal == 0)
+            return null;
+
+        float invX = 1F / dirX;
+        float invY = 1F / dirY;
+        float invZ = 1F / dirZ;
+        float closest = maxDistance;
+        int closestPolygon = -1;
+
+        int[] stack = new int[MAX_DEPTH];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (rayBoxDistance(this.nodeBounds, node * 6, originX, originY, originZ, invX, invY, invZ, closest) < 0)
+                continue;
+
+            if (this.nodeCount[node] == 0) {
+                stack[stackSize++] = this.nodeLeft[node];
+                stack[stackSize++] = this.nodeRight[node];
+                continue;
+            }
+
+            for (int i = this.nodeStart[node]; i < this.nodeStart[node] + this.nodeCount[node]; i++) {
+                float distance = rayPolygonDistance(this.polygons[i], originX, originY, originZ, dirX, dirY, dirZ);
+                if (distance >= 0 && distance <= closest) {
+                    closest = distance;
+                    closestPolygon = i;
+                }
+            }
+        }
+
+        if (closestPolygon == -1)
+            return null;
+
+        return new RayHit(this.polygons[closestPolygon], closest, originX + (dirX * closest), originY + (dirY * closest), originZ + (dirZ * closest));
+    }
+
+    /**
+     * Find the polygon closest to a position.
+     * @param position The position to search from.
+     * @return closestPolygon, or null if there are no polygons.
+     */
+    public MAPPolygon findNearestPolygon(SVector position) {
+        return findNearestPolygon(position.getFloatX(), position.getFloatY(), position.getFloatZ(), Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Find the polygon closest to a position.
+     * @param x           The x position to search from.
+     * @param y           The y position to search from.
+     * @param z           The z position to search from.
+     * @param maxDistance The furthest a polygon can be.
+     * @return closestPolygon, or null if there are no polygons within the distance.
+     */
+    public MAPPolygon findNearestPolygon(float x, float y, float z, float maxDistance) {
+        if (this.nodeTotal == 0)
+            return null;
+
+        float[] point = new float[3];
+        float closestSquared = maxDistance * maxDistance;
+        int closestPolygon = -1;
+
+        int[] stack = new int[MAX_DEPTH];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (boxDistanceSquared(this.nodeBounds, node * 6, x, y, z) > closestSquared)
+                continue;
+
+            if (this.nodeCount[node] == 0) { // Search the closer child first, so the further one can be skipped more often.
+                int left = this.nodeLeft[node];
+                int right = this.nodeRight[node];
+                boolean leftCloser = boxDistanceSquared(this.nodeBounds, left * 6, x, y, z) <= boxDistanceSquared(this.nodeBounds, right * 6, x, y, z);
+                stack[stackSize++] = leftCloser ? right : left;
+                stack[stackSize++] = leftCloser ? left : right;
+                continue;
+            }
+
+            for (int i = this.nodeStart[node]; i < this.nodeStart[node] + this.nodeCount[node]; i++) {
+                if (boxDistanceSquared(this.polygonBounds, i * 6, x, y, z) > closestSquared)
+                    continue;
+
+                float distanceSquared = polygonDistanceSquared(this.polygons[i], x, y, z, point);
+                if (distanceSquared <= closestSquared) {
+                    closestSquared = distanceSquared;
+                    closestPolygon = i;
+                }
+            }
+        }
+
+        return closestPolygon != -1 ? this.polygons[closestPolygon] : null;
+    }
+
+    /**
+     * Find every polygon whose box overlaps a box.
+     * @param minX    The minimum x of the box.
+     * @param minY    The minimum y of the box.
+     * @param minZ    The minimum z of the box.
+     * @param maxX    The maximum x of the box.
+     * @param maxY    The maximum y of the box.
+     * @param maxZ    The maximum z of the box.
+     * @param results The list to add the polygons to. If null, a new list is made.
+     * @return results
+     */
+    public List<MAPPolygon> findPolygons(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, List<MAPPolygon> results) {
+        if (results == null)
+            results = new ArrayList<>();
+        if (this.nodeTotal == 0)
+            return results;
+
+        int[] stack = new int[MAX_DEPTH];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            if (!boxesOverlap(this.nodeBounds, node * 6, minX, minY, minZ, maxX, maxY, maxZ))
+                continue;
+
+            if (this.nodeCount[node] == 0) {
+                stack[stackSize++] = this.nodeLeft[node];
+                stack[stackSize++] = this.nodeRight[node];
+                continue;
+            }
+
+            for (int i = this.nodeStart[node]; i < this.nodeStart[node] + this.nodeCount[node]; i++)
+                if (boxesOverlap(this.polygonBounds, i * 6, minX, minY, minZ, maxX, maxY, maxZ))
+                    results.add(this.polygons[i]);
+        }
+
+        return results;
+    }
+
+    private void calculatePolygonBounds(MAPPolygon poly, float[] bounds, int index) {
+        resetBounds(bounds, index);
+        List<SVector> vertices = this.map.getVertexes();
+        for (int i = 0; i < poly.getVerticeCount(); i++) {
+            SVector vertex = vertices.get(poly.getVertices()[i]);
+            float x = vertex.getFloatX();
+            float y = vertex.getFloatY();
+            float z = vertex.getFloatZ();
+            bounds[index] = Math.min(bounds[index], x);
+            bounds[index + 1] = Math.min(bounds[index + 1], y);
+            bounds[index + 2] = Math.min(bounds[index + 2], z);
+            bounds[index + 3] = Math.max(bounds[index + 3], x);
+            bounds[index + 4] = Math.max(bounds[index + 4], y);
+            bounds[index + 5] = Math.max(bounds[index + 5], z);
+        }
+    }
+
+    private static void resetBounds(float[] bounds, int index) {
+        Arrays.fill(bounds, index, index + 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(bounds, index + 3, index + 6, Float.NEGATIVE_INFINITY);
+    }
+
+    private static void includeBounds(float[] bounds, int index, float[] other, int otherIndex) {
+        for (int i = 0; i < 3; i++) {
+            bounds[index + i] = Math.min(bounds[index + i], other[otherIndex + i]);
+            bounds[index + i + 3] = Math.max(bounds[index + i + 3], other[otherIndex + i + 3]);
+        }
+    }
+
+    private static boolean boxesOverlap(float[] bounds, int index, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return bounds[index] <= maxX && bounds[index + 3] >= minX
+                && bounds[index + 1] <= maxY && bounds[index + 4] >= minY
+                && bounds[index + 2] <= maxZ && bounds[index + 5] >= minZ;
+    }
+
+    private static float boxDistanceSquared(float[] bounds, int index, float x, float y, float z) {
+        float xDist = Math.max(0, Math.max(bounds[index] - x, x - bounds[index + 3]));
+        float yDist = Math.max(0, Math.max(bounds[index + 1] - y, y - bounds[index + 4]));
+        float zDist = Math.max(0, Math.max(bounds[index + 2] - z, z - bounds[index + 5]));
+        return (xDist * xDist) + (yDist * yDist) + (zDist * zDist);
+    }
+
+    private static float rayBoxDistance(float[] bounds, int index, float originX, float originY, float originZ, float invX, float invY, float invZ, float maxDistance) {
+        // Slab test. Returns -1 if the box isn't hit before the max distance.
+        // If the ray doesn't move along an axis, the inverse is infinite, and the origin being on the edge of the box would give NaN, so the origin is tested against the box instead.
+        float tMin = 0;
+        float tMax = maxDistance;
+
+        if (Float.isInfinite(invX)) {
+            if (originX < bounds[index] || originX > bounds[index + 3])
+                return -1;
+        } else {
+            float t1 = (bounds[index] - originX) * invX;
+            float t2 = (bounds[index + 3] - originX) * invX;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+
+        if (Float.isInfinite(invY)) {
+            if (originY < bounds[index + 1] || originY > bounds[index + 4])
+                return -1;
+        } else {
+            float t1 = (bounds[index + 1] - originY) * invY;
+            float t2 = (bounds[index + 4] - originY) * invY;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+
+        if (Float.isInfinite(invZ)) {
+            if (originZ < bounds[index + 2] || originZ > bounds[index + 5])
+                return -1;
+        } else {
+            float t1 = (bounds[index + 2] - originZ) * invZ;
+            float t2 = (bounds[index + 5] - originZ) * invZ;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+
+        return tMax >= tMin ? tMin : -1;
+    }
+
+    private float rayPolygonDistance(MAPPolygon poly, float originX, float originY, float originZ, float dirX, float dirY, float dirZ) {
+        // Quads are split into the same two triangles the 3D view draws.
+        int[] verts = poly.getVertices();
+        float distance = rayTriangleDistance(verts[0], verts[1], verts[poly.getVerticeCount() == MAPPolygon.QUAD_SIZE ? 3 : 2], originX, originY, originZ, dirX, dirY, dirZ);
+        if (poly.getVerticeCount() == MAPPolygon.QUAD_SIZE) {
+            float otherDistance = rayTriangleDistance(verts[1], verts[2], verts[3], originX, originY, originZ, dirX, dirY, dirZ);
+            if (otherDistance >= 0 && (distance < 0 || otherDistance < distance))
+                distance = otherDistance;
+        }
+
+        return distance;
+    }
+
+    private float rayTriangleDistance(int vertex0, int vertex1, int vertex2, float originX, float originY, float originZ, float dirX, float dirY, float dirZ) {
+        // Möller-Trumbore. Returns -1 if the triangle isn't hit.
+        List<SVector> vertices = this.map.getVertexes();
+        SVector v0 = vertices.get(vertex0);
+        SVector v1 = vertices.get(vertex1);
+        SVector v2 = vertices.get(vertex2);
+        float edge1X = v1.getFloatX() - v0.getFloatX(), edge1Y = v1.getFloatY() - v0.getFloatY(), edge1Z = v1.getFloatZ() - v0.getFloatZ();
+        float edge2X = v2.getFloatX() - v0.getFloatX(), edge2Y = v2.getFloatY() - v0.getFloatY(), edge2Z = v2.getFloatZ() - v0.getFloatZ();
+
+        float pX = (dirY * edge2Z) - (dirZ * edge2Y);
+        float pY = (dirZ * edge2X) - (dirX * edge2Z);
+        float pZ = (dirX * edge2Y) - (dirY * edge2X);
+        float determinant = (edge1X * pX) + (edge1Y * pY) + (edge1Z * pZ);
+        if (Math.abs(determinant) < EPSILON)
+            return -1;
+
+        float invDeterminant = 1F / determinant;
+        float tX = originX - v0.getFloatX(), tY = originY - v0.getFloatY(), tZ = originZ - v0.getFloatZ();
+        float u = ((tX * pX) + (tY * pY) + (tZ * pZ)) * invDeterminant;
+        if (u < 0 || u > 1)
+            return -1;
+
+        float qX = (tY * edge1Z) - (tZ * edge1Y);
+        float qY = (tZ * edge1X) - (tX * edge1Z);
+        float qZ = (tX * edge1Y) - (tY * edge1X);
+        float v = ((dirX * qX) + (dirY * qY) + (dirZ * qZ)) * invDeterminant;
+        if (v < 0 || u + v > 1)
+            return -1;
+
+        float distance = ((edge2X * qX) + (edge2Y * qY) + (edge2Z * qZ)) * invDeterminant;
+        return distance >= 0 ? distance : -1;
+    }
+
+    private float polygonDistanceSquared(MAPPolygon poly, float x, float y, float z, float[] point) {
+        int[] verts = poly.getVertices();
+        float distance = triangleDistanceSquared(verts[0], verts[1], verts[poly.getVerticeCount() == MAPPolygon.QUAD_SIZE ? 3 : 2], x, y, z, point);
+        if (poly.getVerticeCount() == MAPPolygon.QUAD_SIZE)
+            distance = Math.min(distance, triangleDistanceSquared(verts[1], verts[2], verts[3], x, y, z, point));
+        return distance;
+    }
+
+    private float triangleDistanceSquared(int vertex0, int vertex1, int vertex2, float x, float y, float z, float[] point) {
+        List<SVector> vertices = this.map.getVertexes();
+        closestPointOnTriangle(vertices.get(vertex0), vertices.get(vertex1), vertices.get(vertex2), x, y, z, point);
+        float xDist = point[0] - x;
+        float yDist = point[1] - y;
+        float zDist = point[2] - z;
+        return (xDist * xDist) + (yDist * yDist) + (zDist * zDist);
+    }
+
+    private static void closestPointOnTriangle(SVector a, SVector b, SVector c, float x, float y, float z, float[] out) {
+        // From Real-Time Collision Detection, by Christer Ericson. Finds which part of the triangle (corner, edge, or face) is closest.
+        float abX = b.getFloatX() - a.getFloatX(), abY = b.getFloatY() - a.getFloatY(), abZ = b.getFloatZ() - a.getFloatZ();
+        float acX = c.getFloatX() - a.getFloatX(), acY = c.getFloatY() - a.getFloatY(), acZ = c.getFloatZ() - a.getFloatZ();
+        float apX = x - a.getFloatX(), apY = y - a.getFloatY(), apZ = z - a.getFloatZ();
+        float d1 = (abX * apX) + (abY * apY) + (abZ * apZ);
+        float d2 = (acX * apX) + (acY * apY) + (acZ * apZ);
+        if (d1 <= 0 && d2 <= 0) {
+            setPoint(out, a, 0, abX, abY, abZ, 0, acX, acY, acZ);
+            return;
+        }
+
+        float bpX = x - b.getFloatX(), bpY = y - b.getFloatY(), bpZ = z - b.getFloatZ();
+        float d3 = (abX * bpX) + (abY * bpY) + (abZ * bpZ);
+        float d4 = (acX * bpX) + (acY * bpY) + (acZ * bpZ);
+        if (d3 >= 0 && d4 <= d3) {
+            setPoint(out, a, 1, abX, abY, abZ, 0, acX, acY, acZ);
+            return;
+        }
+
+        float vc = (d1 * d4) - (d3 * d2);
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            setPoint(out, a, d1 / (d1 - d3), abX, abY, abZ, 0, acX, acY, acZ);
+            return;
+        }
+
+        float cpX = x - c.getFloatX(), cpY = y - c.getFloatY(), cpZ = z - c.getFloatZ();
+        float d5 = (abX * cpX) + (abY * cpY) + (abZ * cpZ);
+        float d6 = (acX * cpX) + (acY * cpY) + (acZ * cpZ);
+        if (d6 >= 0 && d5 <= d6) {
+            setPoint(out, a, 0, abX, abY, abZ, 1, acX, acY, acZ);
+            return;
+        }
+
+        float vb = (d5 * d2) - (d1 * d6);
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            setPoint(out, a, 0, abX, abY, abZ, d2 / (d2 - d6), acX, acY, acZ);
+            return;
+        }
+
+        float va = (d3 * d6) - (d5 * d4);
+        if (va <= 0 && (d4 - d3) >= 0 && (d5 - d6) >= 0) {
+            float w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            setPoint(out, a, 1 - w, abX, abY, abZ, w, acX, acY, acZ);
+            return;
+        }
+
+        float denominator = 1F / (va + vb + vc);
+        setPoint(out, a, vb * denominator, abX, abY, abZ, vc * denominator, acX, acY, acZ);
+    }
+
+    private static void setPoint(float[] out, SVector a, float abWeight, float abX, float abY, float abZ, float acWeight, float acX, float acY, float acZ) {
+        out[0] = a.getFloatX() + (abX * abWeight) + (acX * acWeight);
+        out[1] = a.getFloatY() + (abY * abWeight) + (acY * acWeight);
+        out[2] = a.getFloatZ() + (abZ * abWeight) + (acZ * acWeight);
+    }
+
+    /**
+     * The result of a ray cast.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RayHit {
+        private final MAPPolygon polygon;
+        private final float distance; // In lengths of the ray direction.
+        private final float x;
+        private final float y;
+        private final float z;
+    }
+}
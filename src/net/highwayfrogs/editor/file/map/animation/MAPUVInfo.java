@@ -49,8 +49,9 @@ public class MAPUVInfo extends GameObject {
 
     @Override
     public void save(DataWriter writer) {
-        Utils.verify(getMap().getSavePolygonPointerMap().containsKey(getPolygon()), "The relevant polygon was not saved!");
-        writer.writeInt(getMap().getSavePolygonPointerMap().get(getPolygon()));
+        int polyPointer = getMap().getSavePolygonPointerMap().get(getPolygon(), -1);
+        Utils.verify(polyPointer != -1, "The relevant polygon was not saved!");
+        writer.writeInt(polyPointer);
         writer.writeNull(TOTAL_UV_BLOCK_SIZE); // Run-time UV space.
     }
 
@@ -49,8 +49,8 @@ public class GridSquare extends GameObject {
     public void save(DataWriter writer) {
         writer.writeInt(this.flags);
 
-        Integer polyPointer = parent.getSavePolygonPointerMap().get(polygon);
-        Utils.verify(polyPointer != null, "A GridSquare's polygon was not saved! This means this GridSquare likely should not be saved!");
+        int polyPointer = parent.getSavePolygonPointerMap().get(polygon, -1);
+        Utils.verify(polyPointer != -1, "A GridSquare's polygon was not saved! This means this GridSquare likely should not be saved!");
         writer.writeInt(polyPointer);
     }
 
@@ -76,9 +76,8 @@ public class MAPGroup extends GameObject {
 
             int pointer = 0;
             if (!polyList.isEmpty()) {
-                Integer newPointer = map.getSavePolygonPointerMap().get(polyList.get(0));
-                Utils.verify(newPointer != null, "A MAP_GROUP polygon was not written.");
-                pointer = newPointer;
+                pointer = map.getSavePolygonPointerMap().get(polyList.get(0), -1);
+                Utils.verify(pointer != -1, "A MAP_GROUP polygon was not written.");
             }
 
             writer.writeInt(pointer);
@@ -99,7 +98,9 @@ public class MAPGroup extends GameObject {
             int count = loadPolygonCountMap.get(type);
 
             if (count > 0 && from != null) {
-                int index = from.indexOf(map.getLoadPointerPolygonMap().get(loadPolygonPointerMap.get(type)));
+                MAPPrimitive firstPrimitive = map.getLoadPointerPolygonMap().get(loadPolygonPointerMap.get(type));
+                int index = firstPrimitive != null ? map.getLoadPolygonIndexMap().get(firstPrimitive, -1) : -1;
+                Utils.verify(index != -1, "MAP_GROUP polygon pointer does not point to a loaded primitive.");
                 for (int i = 0; i < count; i++)
                     from.get(index + i).setAllowDisplay(true);
             }
@@ -1,7 +1,10 @@
 package net.highwayfrogs.editor.file.map.poly.polygon;
 
+import net.highwayfrogs.editor.file.map.MAPFile;
 import net.highwayfrogs.editor.file.map.view.FrogMesh;
 import net.highwayfrogs.editor.file.map.view.MapMesh;
+import net.highwayfrogs.editor.file.map.view.ShadedTextureCache;
+import net.highwayfrogs.editor.file.map.view.ShadedTextureCache.ShadeType;
 import net.highwayfrogs.editor.file.map.view.TextureMap;
 import net.highwayfrogs.editor.file.map.view.TextureMap.ShaderMode;
 import net.highwayfrogs.editor.utils.Utils;
@@ -30,9 +33,12 @@ public class MAPPolyFT extends MAPPolyTexture {
         if (map.getMode() == ShaderMode.NO_SHADING) {
             return getGameImage(map).toBufferedImage(map.getDisplaySettings());
         } else if (isOverlay(map)) {
-            return makeShadeImage(map, false);
+            return map.getShadedTextureCache().getImage(ShadeType.FLAT_OVERLAY, ShadedTextureCache.NO_TEXTURE, MAPFile.VERTEX_COLOR_IMAGE_SIZE,
+                    MAPFile.VERTEX_COLOR_IMAGE_SIZE, new int[]{getColors()[0].toRGB()}, null, () -> makeShadeImage(map, false));
         } else {
-            return MAPPolyTexture.makeFlatShadedTexture(getGameImage(map).toBufferedImage(map.getDisplaySettings()), Utils.fromRGB(getColors()[0].toRGB()));
+            BufferedImage texture = getGameImage(map).toBufferedImage(map.getDisplaySettings());
+            return map.getShadedTextureCache().getImage(ShadeType.FLAT_TEXTURE, getTextureId(), texture.getWidth(), texture.getHeight(),
+                    new int[]{getColors()[0].toRGB()}, texture, () -> MAPPolyTexture.makeFlatShadedTexture(texture, Utils.fromRGB(getColors()[0].toRGB())));
         }
     }
 
@@ -41,7 +47,7 @@ public class MAPPolyFT extends MAPPolyTexture {
         if (map.getMode() == ShaderMode.NO_SHADING) {
             return makeIdentifier(0x7E8BA5E, getTextureId());
         } else {
-            return makeIdentifier(0xF1A77E8, getTextureId(), getColors()[0].toRGB());
+            return makeIdentifier(0xF1A77E8, getTextureId(), ShadedTextureCache.quantizeColor(getColors()[0].toRGB()));
         }
     }
 
@@ -1,8 +1,11 @@
 package net.highwayfrogs.editor.file.map.poly.polygon;
 
 import javafx.scene.paint.Color;
+import net.highwayfrogs.editor.file.map.MAPFile;
 import net.highwayfrogs.editor.file.map.view.FrogMesh;
 import net.highwayfrogs.editor.file.map.view.MapMesh;
+import net.highwayfrogs.editor.file.map.view.ShadedTextureCache;
+import net.highwayfrogs.editor.file.map.view.ShadedTextureCache.ShadeType;
 import net.highwayfrogs.editor.file.map.view.TextureMap;
 import net.highwayfrogs.editor.file.map.view.TextureMap.ShaderMode;
 import net.highwayfrogs.editor.file.standard.psx.PSXColorVector;
@@ -32,9 +35,12 @@ public class MAPPolyGT extends MAPPolyTexture {
         if (map.getMode() == ShaderMode.NO_SHADING) {
             return getGameImage(map).toBufferedImage(map.getDisplaySettings());
         } else if (isOverlay(map)) {
-            return makeShadeImage(map, false);
+            return map.getShadedTextureCache().getImage(ShadeType.GOURAUD_OVERLAY, ShadedTextureCache.NO_TEXTURE, MAPFile.VERTEX_COLOR_IMAGE_SIZE,
+                    MAPFile.VERTEX_COLOR_IMAGE_SIZE, getColorValues(), null, () -> makeShadeImage(map, false));
         } else {
-            return makeShadedTexture(map, getGameImage(map).toBufferedImage(map.getDisplaySettings()));
+            BufferedImage texture = getGameImage(map).toBufferedImage(map.getDisplaySettings());
+            return map.getShadedTextureCache().getImage(ShadeType.GOURAUD_TEXTURE, getTextureId(), texture.getWidth(), texture.getHeight(),
+                    getColorValues(), texture, () -> makeShadedTexture(map, texture));
         }
     }
 
@@ -47,11 +53,18 @@ public class MAPPolyGT extends MAPPolyTexture {
             colors[0] = 0xF0A54ADE;
             colors[1] = getTextureId();
             for (int i = 0; i < getColors().length; i++)
-                colors[i + 2] = getColors()[i].toRGB();
+                colors[i + 2] = ShadedTextureCache.quantizeColor(getColors()[i].toRGB());
             return makeIdentifier(colors);
         }
     }
 
+    private int[] getColorValues() {
+        int[] colors = new int[getColors().length];
+        for (int i = 0; i < colors.length; i++)
+            colors[i] = getColors()[i].toRGB();
+        return colors;
+    }
+
     @Override
     public BufferedImage makeShadeImage(TextureMap map, int width, int height, boolean useRaw) {
         final Color c0 = useRaw ? Utils.fromRGB(getColors()[0].toShadeRGB()) : loadColor(getColors()[0]);
@@ -121,6 +121,7 @@ public abstract class MAPPolyTexture extends MAPPolygon implements TexturedPoly
 
             setTextureId(newValue);
             view.setImage(Utils.toFXImage(makePreviewImage(controller), false));
+            controller.getGeometryManager().updatePolygon(this);
         }, false));
 
         // Flags.
@@ -129,13 +130,16 @@ public abstract class MAPPolyTexture extends MAPPolygon implements TexturedPoly
 
         // UVs
         for (int i = 0; i < this.uvs.length; i++)
-            this.uvs[i].setupEditor("UV #" + i, editor, () -> view.setImage(Utils.toFXImage(makePreviewImage(controller), false)));
+            this.uvs[i].setupEditor("UV #" + i, editor, () -> {
+                view.setImage(Utils.toFXImage(makePreviewImage(controller), false));
+                controller.getGeometryManager().updatePolygon(this);
+            });
 
         // Colors
         editor.addBoldLabel("Colors:");
         String[] nameArray = COLOR_BANK[getColors().length - 1];
         for (int i = 0; i < getColors().length; i++)
-            getColors()[i].setupEditor(editor, nameArray[i], getGameImage(controller.getMapMesh().getTextureMap()).toBufferedImage(SHOW_SETTINGS), null);
+            getColors()[i].setupEditor(editor, nameArray[i], getGameImage(controller.getMapMesh().getTextureMap()).toBufferedImage(SHOW_SETTINGS), () -> controller.getGeometryManager().updatePolygon(this));
     }
 
     private BufferedImage makePreviewImage(MapUIController controller) {
@@ -12,12 +12,12 @@ import net.highwayfrogs.editor.file.standard.psx.ByteUV;
 import net.highwayfrogs.editor.file.standard.psx.PSXGPUPrimitive;
 import net.highwayfrogs.editor.file.vlo.GameImage;
 import net.highwayfrogs.editor.gui.mesh.MeshManager;
+import net.highwayfrogs.editor.system.IdentityIntMap;
 import net.highwayfrogs.editor.system.TexturedPoly;
 import net.highwayfrogs.editor.utils.Utils;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -26,12 +26,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 @Getter
 public abstract class FrogMesh<T extends PSXGPUPrimitive & TextureSource> extends TriangleMesh {
-    private Map<Integer, T> facePolyMap = new HashMap<>();
-    private Map<T, Integer> polyFaceMap = new HashMap<>();
+    private Object[] facePolygons = new Object[16]; // The polygon which made each face. Quads make two faces.
+    private int polygonFaceCount;
+    private IdentityIntMap<T> polygonFaces = new IdentityIntMap<>(); // The first face made by each polygon.
     private TextureMap textureMap;
     private MeshManager manager;
     private int faceCount;
     private int textureCount;
+    private transient float[] pointBuffer = new float[0];
+    protected final transient float[] texCoordBuffer = new float[MAPPolygon.QUAD_SIZE * 2];
     @Setter private int verticeStart;
 
     public FrogMesh(TextureMap map, VertexFormat format) {
@@ -67,9 +70,7 @@ public abstract class FrogMesh<T extends PSXGPUPrimitive & TextureSource> extend
 
         int[] verts = poly.getVertices();
         int face = getFaces().size() / getFaceElementSize();
-        polyFaceMap.put(poly, face);
-        facePolyMap.put(face, poly);
-        facePolyMap.put(face + 1, poly);
+        addPolygonFace(poly, face, 2);
 
         // Add Face + Textures.
         int texId = addTexCoords(poly, texCoord);
@@ -96,8 +97,7 @@ public abstract class FrogMesh<T extends PSXGPUPrimitive & TextureSource> extend
 
         int[] verts = poly.getVertices();
         int face = getFaces().size() / getFaceElementSize();
-        facePolyMap.put(face, poly);
-        polyFaceMap.put(poly, face);
+        addPolygonFace(poly, face, 1);
 
         int texId = addTexCoords(poly, texCoord);
         getFaces().addAll(verts[2] + getVerticeStart(), texId + 2, verts[1] + getVerticeStart(), texId + 1, verts[0] + getVerticeStart(), texId);
@@ -113,14 +113,54 @@ public abstract class FrogMesh<T extends PSXGPUPrimitive & TextureSource> extend
         getFaces().addAll(v1 + getVerticeStart(), texId + 2, v2 + getVerticeStart(), texId + 1, v3 + getVerticeStart(), texId);
     }
 
+    private void addPolygonFace(T poly, int face, int faceCount) {
+        if (face + faceCount > this.facePolygons.length)
+            this.facePolygons = Arrays.copyOf(this.facePolygons, Math.max(face + faceCount, this.facePolygons.length * 2));
+
+        for (int i = 0; i < faceCount; i++)
+            this.facePolygons[face + i] = poly;
+        this.polygonFaceCount = Math.max(this.polygonFaceCount, face + faceCount);
+        this.polygonFaces.put(poly, face);
+    }
+
+    /**
+     * Gets the polygon which a face of this mesh was made from.
+     * @param face The face index, such as from a pick result.
+     * @return polygon, or null if the face wasn't made from a polygon.
+     */
+    @SuppressWarnings("unchecked")
+    public T getPolygon(int face) {
+        return (face >= 0 && face < this.polygonFaceCount) ? (T) this.facePolygons[face] : null;
+    }
+
+    /**
+     * Gets the first face which a polygon was made into.
+     * @param polygon The polygon to get the face of.
+     * @return face, or -1 if the polygon isn't part of this mesh.
+     */
+    public int getFace(T polygon) {
+        return this.polygonFaces.get(polygon, -1);
+    }
+
     protected int addTexCoords(T poly, AtomicInteger texCoord) {
+        int texId = texCoord.get();
+        texCoord.addAndGet(poly.getVerticeCount());
+
+        int length = calculateTexCoords(poly, this.texCoordBuffer);
+        getTexCoords().addAll(this.texCoordBuffer, 0, length);
+        return texId;
+    }
+
+    /**
+     * Calculate the texture coordinates a polygon uses in the texture map.
+     * @param poly   The polygon to calculate texture coordinates for.
+     * @param output The array to write the texture coordinates to. Must have room for four coordinates.
+     * @return The number of floats written.
+     */
+    protected int calculateTexCoords(T poly, float[] output) {
         GameImage image = poly.isOverlay(getTextureMap()) ? poly.getGameImage(getTextureMap()) : null;
         TextureSource source = image != null ? image : poly;
 
-        int texId = texCoord.get();
-        int texCount = poly.getVerticeCount();
-
-        texCoord.addAndGet(texCount);
         TextureTreeNode entry = source.getTreeNode(textureMap);
         if (entry == null) {
             System.out.println("There was a texture on this " + getClass().getSimpleName() + " which was not found in the TextureMap! (ID: " + poly.getGameImage(getTextureMap()).getTextureId() + ")");
@@ -129,31 +169,76 @@ public abstract class FrogMesh<T extends PSXGPUPrimitive & TextureSource> extend
                 throw new RuntimeException("The default unknown texture was not found in the TextureMap.");
         }
 
+        if (!(poly instanceof TexturedPoly))
+            return entry.getTexCoords(poly.getVerticeCount(), output);
+
         float uSize = (entry.getMaxU() - entry.getMinU());
         float vSize = (entry.getMaxV() - entry.getMinV());
+        TexturedPoly texPoly = (TexturedPoly) poly;
+        ByteUV[] uvs = texPoly.getUvs();
 
-        if (poly instanceof TexturedPoly) {
-            TexturedPoly texPoly = (TexturedPoly) poly;
-            ByteUV[] uvs = texPoly.getUvs();
-
-            texPoly.performSwap();
-            for (ByteUV uv : uvs)
-                getTexCoords().addAll(entry.getMinU() + (uSize * uv.getFloatU()), entry.getMinV() + (vSize * uv.getFloatV()));
-            texPoly.performSwap();
-        } else {
-            entry.applyMesh(this, texCount);
+        int index = 0;
+        texPoly.performSwap();
+        for (ByteUV uv : uvs) {
+            output[index++] = entry.getMinU() + (uSize * uv.getFloatU());
+            output[index++] = entry.getMinV() + (vSize * uv.getFloatV());
         }
+        texPoly.performSwap();
+        return index;
+    }
 
-        return texId;
+    /**
+     * Gets the index of the first texture coordinate used by a face.
+     * Faces made by this mesh use their lowest texture coordinate in the same spot, so this works for both polygon faces and faces drawn over them.
+     * @param face      The face to get the texture coordinate of.
+     * @param vertCount The number of vertices in the polygon which made the face.
+     * @return texCoordId
+     */
+    protected int getFaceTexCoordId(int face, int vertCount) {
+        int increment = getVertexFormat().getVertexIndexSize();
+        return getFaceElement((face * getFaceElementSize()) + (vertCount == MAPPolygon.QUAD_SIZE ? 1 : (2 * increment) + 1));
+    }
+
+    /**
+     * Gets a value from the face array, as it was when the face was made.
+     * @param index The index into the face array.
+     * @return faceElement
+     */
+    protected int getFaceElement(int index) {
+        return getFaces().get(index);
     }
 
     /**
-     * Load vertex data.
+     * Load vertex data. Only vertex positions are changed, so this can be used on its own when vertices move, but the faces using them stay the same.
      */
     public void updateVertices() {
-        getPoints().clear();
-        for (Vector vertex : getVertices())
-            getPoints().addAll(vertex.getFloatX(), vertex.getFloatY(), vertex.getFloatZ());
+        List<? extends Vector> vertices = getVertices();
+        int length = vertices.size() * 3;
+        if (this.pointBuffer.length != length)
+            this.pointBuffer = new float[length];
+
+        int index = 0;
+        for (Vector vertex : vertices) {
+            this.pointBuffer[index++] = vertex.getFloatX();
+            this.pointBuffer[index++] = vertex.getFloatY();
+            this.pointBuffer[index++] = vertex.getFloatZ();
+        }
+
+        writePoints(this.pointBuffer, length);
+    }
+
+    /**
+     * Replace the vertex positions of this mesh.
+     * If the number of vertices hasn't changed, the positions are written over the existing ones, instead of the array being rebuilt.
+     * @param points The packed x, y, z positions to use.
+     * @param length The number of floats to use from the array.
+     */
+    protected void writePoints(float[] points, int length) {
+        if (getPoints().size() == length) {
+            getPoints().set(0, points, 0, length);
+        } else {
+            getPoints().setAll(points, 0, length);
+        }
     }
 
     /**
@@ -172,9 +257,10 @@ public abstract class FrogMesh<T extends PSXGPUPrimitive & TextureSource> extend
      * Load polygon data.
      */
     public void updatePolygonData() {
-        getManager().getMeshData().clear();
-        getFacePolyMap().clear();
-        getPolyFaceMap().clear();
+        getManager().clear();
+        Arrays.fill(this.facePolygons, 0, this.polygonFaceCount, null);
+        this.polygonFaceCount = 0;
+        this.polygonFaces.clear();
         getFaces().clear();
         getTexCoords().clear();
         this.onUpdatePolygonData();
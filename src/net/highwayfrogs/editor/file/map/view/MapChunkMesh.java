@@ -0,0 +1,157 @@
+package net.highwayfrogs.editor.file.map.view;
+
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import lombok.Getter;
+import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolygon;
+import net.highwayfrogs.editor.file.standard.SVector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the polygons of a square of map groups, so the area can be shown or hidden on its own.
+ * The faces are copied from the MapMesh, but only the vertices and texture coordinates this area uses are kept, so hiding it doesn't change any other mesh.
+ */
+@Getter
+public class MapChunkMesh extends TriangleMesh {
+    private final MapMesh parent;
+    private final boolean cullable; // Polygons outside of the map groups are always shown.
+    private MAPPolygon[] facePolygons = new MAPPolygon[0]; // The polygon which made each face, including faces drawn over polygons.
+    private SVector[] vertices = new SVector[0]; // The vertex each point was made from.
+    private int[] texCoordIds = new int[0]; // The texture coordinate in this mesh each MapMesh texture coordinate was copied to, or -1 if it isn't used.
+    private final float[] bounds = new float[6]; // The min x, y, z and max x, y, z of the points.
+    private transient float[] pointBuffer = new float[0];
+
+    MapChunkMesh(MapMesh parent, boolean cullable) {
+        super(VertexFormat.POINT_TEXCOORD);
+        this.parent = parent;
+        this.cullable = cullable;
+    }
+
+    /**
+     * Copy faces from the MapMesh. Each range is a range of face elements.
+     * @param ranges      The start and end of each range of faces to copy.
+     * @param faceOwners  The polygon which made each face of the MapMesh.
+     * @param texCoords   The texture coordinates of the MapMesh.
+     * @param vertexCount The number of vertices in the map.
+     */
+    void build(int[] ranges, MAPPolygon[] faceOwners, float[] texCoords, int vertexCount) {
+        int faceSize = this.parent.getFaceElementSize();
+        int elementCount = 0;
+        for (int i = 0; i < ranges.length; i += 2)
+            elementCount += ranges[i + 1] - ranges[i];
+
+        int[] faces = new int[elementCount];
+        this.facePolygons = new MAPPolygon[elementCount / faceSize];
+        int[] pointIds = new int[vertexCount];
+        int[] texCoordIds = new int[texCoords.length / getTexCoordElementSize()];
+        Arrays.fill(pointIds, -1);
+        Arrays.fill(texCoordIds, -1);
+        this.texCoordIds = texCoordIds;
+
+        List<SVector> mapVertices = this.parent.getVertices();
+        SVector[] usedVertices = new SVector[Math.min(vertexCount, elementCount / 2)];
+        int[] usedTexCoords = new int[Math.min(texCoordIds.length, elementCount / 2)];
+        int pointCount = 0;
+        int texCoordCount = 0;
+
+        int index = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            for (int element = ranges[i]; element < ranges[i + 1]; element += 2, index += 2) {
+                if (index % faceSize == 0)
+                    this.facePolygons[index / faceSize] = faceOwners[element / faceSize];
+
+                int vertex = this.parent.getFaceElement(element);
+                if (pointIds[vertex] == -1) {
+                    pointIds[vertex] = pointCount;
+                    usedVertices[pointCount++] = mapVertices.get(vertex);
+                }
+
+                int texCoord = this.parent.getFaceElement(element + 1);
+                if (texCoordIds[texCoord] == -1) {
+                    texCoordIds[texCoord] = texCoordCount;
+                    usedTexCoords[texCoordCount++] = texCoord;
+                }
+
+                faces[index] = pointIds[vertex];
+                faces[index + 1] = texCoordIds[texCoord];
+            }
+        }
+
+        this.vertices = Arrays.copyOf(usedVertices, pointCount);
+        float[] newTexCoords = new float[texCoordCount * 2];
+        for (int i = 0; i < texCoordCount; i++) {
+            newTexCoords[i * 2] = texCoords[usedTexCoords[i] * 2];
+            newTexCoords[(i * 2) + 1] = texCoords[(usedTexCoords[i] * 2) + 1];
+        }
+
+        updatePoints();
+        getTexCoords().setAll(newTexCoords);
+        getFaces().setAll(faces);
+    }
+
+    /**
+     * Update the positions of the points, after vertices have moved.
+     */
+    public void updatePoints() {
+        int length = this.vertices.length * 3;
+        if (this.pointBuffer.length != length)
+            this.pointBuffer = new float[length];
+
+        Arrays.fill(this.bounds, 0, 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(this.bounds, 3, 6, Float.NEGATIVE_INFINITY);
+
+        int index = 0;
+        for (SVector vertex : this.vertices) {
+            float x = vertex.getFloatX();
+            float y = vertex.getFloatY();
+            float z = vertex.getFloatZ();
+            this.pointBuffer[index++] = x;
+            this.pointBuffer[index++] = y;
+            this.pointBuffer[index++] = z;
+            this.bounds[0] = Math.min(this.bounds[0], x);
+            this.bounds[1] = Math.min(this.bounds[1], y);
+            this.bounds[2] = Math.min(this.bounds[2], z);
+            this.bounds[3] = Math.max(this.bounds[3], x);
+            this.bounds[4] = Math.max(this.bounds[4], y);
+            this.bounds[5] = Math.max(this.bounds[5], z);
+        }
+
+        if (getPoints().size() == length) {
+            getPoints().set(0, this.pointBuffer, 0, length);
+        } else {
+            getPoints().setAll(this.pointBuffer, 0, length);
+        }
+    }
+
+    /**
+     * Copy texture coordinates from the MapMesh again, after a polygon's texture coordinates have changed.
+     * @param texCoordId The first MapMesh texture coordinate to copy.
+     * @param count      The number of texture coordinates to copy.
+     */
+    public void updateTexCoords(int texCoordId, int count) {
+        for (int i = texCoordId; i < texCoordId + count; i++) {
+            int localId = i < this.texCoordIds.length ? this.texCoordIds[i] : -1;
+            if (localId != -1)
+                getTexCoords().set(localId * 2, this.parent.getTexCoords(), i * 2, 2);
+        }
+    }
+
+    /**
+     * Test if this chunk has any faces.
+     * @return isEmpty
+     */
+    public boolean isEmpty() {
+        return this.facePolygons.length == 0;
+    }
+
+    /**
+     * Gets the polygon which a face of this mesh was made from.
+     * @param face The face index, such as from a pick result.
+     * @return polygon, or null if the face isn't in this mesh.
+     */
+    public MAPPolygon getPolygon(int face) {
+        return (face >= 0 && face < this.facePolygons.length) ? this.facePolygons[face] : null;
+    }
+}
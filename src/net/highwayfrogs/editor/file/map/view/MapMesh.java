@@ -1,15 +1,22 @@
 package net.highwayfrogs.editor.file.map.view;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.scene.shape.VertexFormat;
 import lombok.Getter;
 import net.highwayfrogs.editor.file.map.MAPFile;
+import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolyTexture;
 import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolygon;
 import net.highwayfrogs.editor.file.map.view.TextureMap.TextureTreeNode;
 import net.highwayfrogs.editor.file.standard.SVector;
+import net.highwayfrogs.editor.system.IdentityIntMap;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Holds Map mesh information.
@@ -18,6 +25,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Getter
 public class MapMesh extends FrogMesh<MAPPolygon> {
     private MAPFile map;
+    private IdentityIntMap<MAPPolygon> overlayFaces = new IdentityIntMap<>(); // The face drawn over each polygon with an overlay texture.
+    private final ObservableList<MapChunkMesh> chunks = FXCollections.observableArrayList(); // The meshes which draw the polygons. The last one holds the polygons outside of the map groups.
+    private int chunkXCount;
+    private int[] chunkFaceStarts; // The first face element of each chunk's polygons. Polygons are added one chunk at a time.
+    private int[] chunkOverlayStarts; // The first face element of each chunk's overlay faces.
+    private int[] polygonFaceData = new int[0]; // The polygon faces. This mesh only draws what's drawn over polygons, the chunks draw the polygons.
+    private MAPPolygon[] faceOwners = new MAPPolygon[0]; // The polygon which made each polygon face or overlay face.
+    private boolean facesMoved; // Whether the faces have been moved to polygonFaceData. While the mesh is being built, they're still in getFaces().
+
+    public static final int CHUNK_GROUP_SIZE = 4; // The width and length of a chunk, in map groups.
 
     public static final CursorVertexColor CURSOR_COLOR = new CursorVertexColor(Color.ORANGE, Color.BLACK);
     public static final CursorVertexColor ANIMATION_COLOR = new CursorVertexColor(Color.YELLOW, Color.BLACK);
@@ -34,13 +51,147 @@ public class MapMesh extends FrogMesh<MAPPolygon> {
 
     @Override
     public void onUpdatePolygonData() {
-        AtomicInteger texId = new AtomicInteger();
-        for (MAPPolygon poly : getMap().getAllPolygons())
-            addPolygon(poly, texId);
+        // Polygons are added one chunk at a time, so each chunk's faces are next to each other.
+        List<MAPPolygon> polygons = getMap().getAllPolygons();
+        this.chunkXCount = (getMap().getGroupXCount() + CHUNK_GROUP_SIZE - 1) / CHUNK_GROUP_SIZE;
+        int chunkZCount = (getMap().getGroupZCount() + CHUNK_GROUP_SIZE - 1) / CHUNK_GROUP_SIZE;
+        int chunkCount = (this.chunkXCount * chunkZCount) + 1;
+        int[] polygonChunks = new int[polygons.size()];
+        int[] chunkSizes = new int[chunkCount + 1];
+        for (int i = 0; i < polygons.size(); i++) {
+            int chunk = getPolygonChunk(polygons.get(i), chunkCount);
+            polygonChunks[i] = chunk;
+            chunkSizes[chunk + 1]++;
+        }
+
+        for (int i = 1; i < chunkSizes.length; i++)
+            chunkSizes[i] += chunkSizes[i - 1];
+
+        MAPPolygon[] sortedPolygons = new MAPPolygon[polygons.size()];
+        for (int i = 0; i < polygons.size(); i++)
+            sortedPolygons[chunkSizes[polygonChunks[i]]++] = polygons.get(i);
 
-        // Apply shading to textured polygons. This is done separately from adding the polygons, because for some reason it garbles the textures if we don't separate it. (I think it's expected that polygons are added before anything else.)
-        for (MAPPolygon poly : getMap().getAllPolygons())
+        this.facesMoved = false;
+        this.chunkFaceStarts = new int[chunkCount + 1];
+        this.chunkOverlayStarts = new int[chunkCount + 1];
+
+        // Add the polygons, then apply shading to textured polygons. This is done separately from adding the polygons, because for some reason it garbles the textures if we don't separate it. (I think it's expected that polygons are added before anything else.)
+        AtomicInteger texId = new AtomicInteger();
+        this.overlayFaces.clear();
+        addChunkFaces(sortedPolygons, chunkSizes, this.chunkFaceStarts, poly -> addPolygon(poly, texId));
+        int polygonFaceCount = getFaces().size() / getFaceElementSize();
+        addChunkFaces(sortedPolygons, chunkSizes, this.chunkOverlayStarts, poly -> {
+            int face = getFaces().size() / getFaceElementSize();
             poly.onMeshSetup(this);
+            if (getFaces().size() / getFaceElementSize() > face)
+                this.overlayFaces.put(poly, face);
+
+            int faceEnd = getFaces().size() / getFaceElementSize();
+            if (faceEnd > this.faceOwners.length)
+                this.faceOwners = Arrays.copyOf(this.faceOwners, Math.max(faceEnd, this.faceOwners.length * 2));
+            Arrays.fill(this.faceOwners, face, faceEnd, poly);
+        });
+
+        int faceEnd = getFaces().size() / getFaceElementSize();
+        if (faceEnd > this.faceOwners.length)
+            this.faceOwners = Arrays.copyOf(this.faceOwners, faceEnd);
+        for (int i = 0; i < polygonFaceCount; i++)
+            this.faceOwners[i] = getPolygon(i);
+
+        // Move the faces to the chunks. This mesh keeps the vertices and texture coordinates, so things can still be drawn over polygons.
+        this.polygonFaceData = getFaces().toArray(this.polygonFaceData);
+        this.facesMoved = true;
+        if (this.chunks.size() != chunkCount) {
+            List<MapChunkMesh> newChunks = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++)
+                newChunks.add(new MapChunkMesh(this, i < chunkCount - 1));
+            this.chunks.setAll(newChunks);
+        }
+
+        float[] texCoords = getTexCoords().toArray(null);
+        for (int i = 0; i < chunkCount; i++) {
+            int[] ranges = {this.chunkFaceStarts[i], this.chunkFaceStarts[i + 1], this.chunkOverlayStarts[i], this.chunkOverlayStarts[i + 1]};
+            this.chunks.get(i).build(ranges, this.faceOwners, texCoords, getVertices().size());
+        }
+
+        getFaces().clear();
+    }
+
+    private void addChunkFaces(MAPPolygon[] sortedPolygons, int[] chunkEnds, int[] faceStarts, Consumer<MAPPolygon> handler) {
+        int polyIndex = 0;
+        for (int i = 0; i < chunkEnds.length - 1; i++) {
+            faceStarts[i] = getFaces().size();
+            for (; polyIndex < chunkEnds[i]; polyIndex++)
+                handler.accept(sortedPolygons[polyIndex]);
+        }
+
+        faceStarts[faceStarts.length - 1] = getFaces().size();
+    }
+
+    private int getPolygonChunk(MAPPolygon poly, int chunkCount) {
+        int extraChunk = chunkCount - 1;
+        int group = poly.isAllowDisplay() ? getMap().getPolygonGroup(poly) : -1;
+        if (group < 0 || group >= getMap().getGroupCount())
+            return extraChunk; // Polygons outside of the groups are never hidden.
+
+        int groupX = group % getMap().getGroupXCount();
+        int groupZ = group / getMap().getGroupXCount();
+        return ((groupZ / CHUNK_GROUP_SIZE) * this.chunkXCount) + (groupX / CHUNK_GROUP_SIZE);
+    }
+
+    @Override
+    public void updateVertices() {
+        super.updateVertices();
+        for (MapChunkMesh chunk : this.chunks)
+            chunk.updatePoints();
+    }
+
+    @Override
+    protected int getFaceElement(int index) {
+        return this.facesMoved ? this.polygonFaceData[index] : getFaces().get(index); // Once the faces have been moved to the chunks, they're read from the copy.
+    }
+
+    /**
+     * Update the texture coordinates of a single polygon, after its texture, uvs, or colors have changed.
+     * Only the polygon's own texture coordinates are changed, and only its texture is added to the texture map, if it wasn't already there.
+     * @param poly The polygon to update.
+     * @return success. If false, nothing was changed, and the texture map and mesh have to be rebuilt instead.
+     */
+    public boolean updatePolygon(MAPPolygon poly) {
+        int face = getFace(poly);
+        if (face == -1 || !getTextureMap().updatePolygon(poly))
+            return false;
+
+        // Drawing or removing the face drawn over the polygon would move other faces.
+        boolean hasOverlayFace = this.overlayFaces.containsKey(poly);
+        if (hasOverlayFace != (poly instanceof MAPPolyTexture && poly.isOverlay(getTextureMap())))
+            return false;
+
+        int vertexCount = poly.getVerticeCount();
+        int texCoordId = getFaceTexCoordId(face, vertexCount);
+        int length = calculateTexCoords(poly, this.texCoordBuffer);
+        getTexCoords().set(texCoordId * getTexCoordElementSize(), this.texCoordBuffer, 0, length);
+
+        int overlayTexCoordId = -1;
+        if (hasOverlayFace) {
+            overlayTexCoordId = getFaceTexCoordId(this.overlayFaces.get(poly, -1), vertexCount);
+            length = poly.getTreeNode(getTextureMap()).getTexCoords(vertexCount, this.texCoordBuffer);
+            getTexCoords().set(overlayTexCoordId * getTexCoordElementSize(), this.texCoordBuffer, 0, length);
+        }
+
+        // The chunk drawing the polygon has its own copy of the texture coordinates, so only the ones which changed are copied to it.
+        int faceElement = face * getFaceElementSize();
+        for (int i = 0; i < this.chunks.size(); i++) {
+            if (faceElement < this.chunkFaceStarts[i] || faceElement >= this.chunkFaceStarts[i + 1])
+                continue;
+
+            MapChunkMesh chunk = this.chunks.get(i);
+            chunk.updateTexCoords(texCoordId, vertexCount);
+            if (overlayTexCoordId != -1)
+                chunk.updateTexCoords(overlayTexCoordId, vertexCount);
+        }
+
+        return true;
     }
 
     /**
@@ -61,15 +212,15 @@ public class MapMesh extends FrogMesh<MAPPolygon> {
         int increment = getVertexFormat().getVertexIndexSize();
         boolean isQuad = (targetPoly.getVerticeCount() == MAPPolygon.QUAD_SIZE);
 
-        int face = getPolyFaceMap().get(targetPoly) * getFaceElementSize();
-        int v1 = getFaces().get(face);
-        int v2 = getFaces().get(face + increment);
-        int v3 = getFaces().get(face + (2 * increment));
+        int face = getFace(targetPoly) * getFaceElementSize();
+        int v1 = getFaceElement(face);
+        int v2 = getFaceElement(face + increment);
+        int v3 = getFaceElement(face + (2 * increment));
 
         if (isQuad) {
-            int v4 = getFaces().get(face + (3 * increment));
-            int v5 = getFaces().get(face + (4 * increment));
-            int v6 = getFaces().get(face + (5 * increment));
+            int v4 = getFaceElement(face + (3 * increment));
+            int v5 = getFaceElement(face + (4 * increment));
+            int v6 = getFaceElement(face + (5 * increment));
             addRectangle(node, v1, v2, v3, v4, v5, v6);
         } else {
             addTriangle(node, v1, v2, v3);
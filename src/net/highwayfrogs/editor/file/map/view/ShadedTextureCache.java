@@ -0,0 +1,151 @@
+package net.highwayfrogs.editor.file.map.view;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of shaded polygon textures.
+ * Polygons which use the same texture, have the same (quantized) colors, and produce an image of the same size will share one image.
+ * This keeps the amount of work / memory needed to build a texture map proportional to how many different looks there are, instead of how many polygons there are.
+ */
+@Getter
+public class ShadedTextureCache {
+    private final int maxEntries;
+    private final Map<ShadeKey, ShadeEntry> cache;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public static final int DEFAULT_MAX_ENTRIES = 2048;
+    public static final int COLOR_QUANTIZE_MASK = 0xFCFCFC; // Colors which only differ in the lowest two bits of each channel are treated as the same color.
+    public static final short NO_TEXTURE = (short) -1;
+
+    public ShadedTextureCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ShadedTextureCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<ShadeKey, ShadeEntry>(16, .75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Entry<ShadeKey, ShadeEntry> eldest) {
+                boolean remove = size() > ShadedTextureCache.this.maxEntries;
+                if (remove)
+                    ShadedTextureCache.this.evictions++;
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Gets a shaded image, creating it if it is not cached.
+     * @param shadeType   Identifies how the image is shaded, so differently shaded images with the same colors are not mixed up.
+     * @param textureId   The id of the texture being shaded, or NO_TEXTURE.
+     * @param width       The width of the image which will be created.
+     * @param height      The height of the image which will be created.
+     * @param colors      The colors used to shade the image. These are quantized before use.
+     * @param source      The unshaded image, if there is one. If this changes, the cached image is remade.
+     * @param imageMaker  Creates the image when it is not cached.
+     * @return shadedImage
+     */
+    public BufferedImage getImage(ShadeType shadeType, short textureId, int width, int height, int[] colors, BufferedImage source, Supplier<BufferedImage> imageMaker) {
+        int[] quantizedColors = new int[colors.length];
+        for (int i = 0; i < colors.length; i++)
+            quantizedColors[i] = quantizeColor(colors[i]);
+
+        ShadeKey key = new ShadeKey(shadeType, textureId, width, height, quantizedColors);
+        ShadeEntry entry = this.cache.get(key);
+        if (entry != null && entry.getSource() == source) {
+            this.hits++;
+            return entry.getImage();
+        }
+
+        this.misses++;
+        BufferedImage newImage = imageMaker.get();
+        this.cache.put(key, new ShadeEntry(source, newImage));
+        return newImage;
+    }
+
+    /**
+     * Gets the percentage of lookups which were found in the cache.
+     * @return hitRate
+     */
+    public double getHitRate() {
+        long total = this.hits + this.misses;
+        return total > 0 ? (double) this.hits / total : 0D;
+    }
+
+    /**
+     * Removes all cached images, and resets statistics.
+     */
+    public void clear() {
+        this.cache.clear();
+        this.hits = 0;
+        this.misses = 0;
+        this.evictions = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ShadedTextureCache[Images: " + this.cache.size() + "/" + this.maxEntries + ", Hits: " + this.hits + ", Misses: " + this.misses
+                + ", Evictions: " + this.evictions + ", Hit Rate: " + Math.round(getHitRate() * 100) + "%]";
+    }
+
+    /**
+     * Quantizes a color, so colors which are nearly identical are treated as the same color.
+     * @param rgb The color to quantize.
+     * @return quantizedColor
+     */
+    public static int quantizeColor(int rgb) {
+        return rgb & COLOR_QUANTIZE_MASK;
+    }
+
+    public enum ShadeType {
+        FLAT_OVERLAY, // A single color, used as an overlay.
+        FLAT_TEXTURE, // A texture with a single color applied.
+        GOURAUD_OVERLAY, // Gouraud shading, used as an overlay.
+        GOURAUD_TEXTURE, // A texture with gouraud shading applied.
+        MODEL_FLAT_TEXTURE // A model texture with a single shading color applied.
+    }
+
+    @AllArgsConstructor
+    private static class ShadeKey {
+        private final ShadeType shadeType;
+        private final short textureId;
+        private final int width;
+        private final int height;
+        private final int[] colors;
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ShadeKey))
+                return false;
+
+            ShadeKey other = (ShadeKey) obj;
+            return this.shadeType == other.shadeType && this.textureId == other.textureId
+                    && this.width == other.width && this.height == other.height && Arrays.equals(this.colors, other.colors);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = (this.shadeType.ordinal() * 31) + this.textureId;
+            hash = (hash * 31) + this.width;
+            hash = (hash * 31) + this.height;
+            return (hash * 31) + Arrays.hashCode(this.colors);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ShadeEntry {
+        private final BufferedImage source;
+        private final BufferedImage image;
+    }
+}
@@ -1,6 +1,8 @@
 package net.highwayfrogs.editor.file.map.view;
 
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.PhongMaterial;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,6 +22,7 @@ import net.highwayfrogs.editor.file.vlo.ImageFilterSettings;
 import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
 import net.highwayfrogs.editor.file.vlo.VLOArchive;
 import net.highwayfrogs.editor.gui.editor.MOFController;
+import net.highwayfrogs.editor.system.Tuple2;
 import net.highwayfrogs.editor.utils.Utils;
 
 import java.awt.*;
@@ -46,10 +49,13 @@ public class TextureMap {
     private VLOArchive vloArchive;
     private List<Short> remapList;
     private PhongMaterial material;
+    private WritableImage fxImage; // The image the material shows, so parts of it can be updated.
     private TextureTree textureTree;
     @Setter private ShaderMode mode;
-    private Map<Short, Set<BigInteger>> mapTextureList = new HashMap<>();
+    private Map<Short, Map<BigInteger, Integer>> mapTextureList = new HashMap<>(); // Texture Id -> The identifiers of the polygons using it, and how many polygons use each.
+    private final Map<MAPPolyTexture, Tuple2<Short, BigInteger>> polygonTextureIds = new IdentityHashMap<>(); // The texture id and identifier each polygon was last counted with.
     private final ImageFilterSettings displaySettings = new ImageFilterSettings(ImageState.EXPORT).setAllowTransparency(true); // This is not static because we want it to be gc'd when the TextureMap is.
+    private final ShadedTextureCache shadedTextureCache = new ShadedTextureCache(); // Not static for the same reason.
     private int width;
     private int height;
     @Setter private boolean useModelTextureAnimation;
@@ -112,7 +118,7 @@ public class TextureMap {
      */
     public PhongMaterial getDiffuseMaterial() {
         if (this.material == null)
-            this.material = Utils.makeDiffuseMaterial(Utils.toFXImage(getTextureTree().getImage(), false));
+            this.material = Utils.makeDiffuseMaterial(makeFXImage());
         return this.material;
     }
 
@@ -125,11 +131,79 @@ public class TextureMap {
         if (this.material == null)
             this.material = getDiffuseMaterial();
 
-        Image image = Utils.toFXImage(getTextureTree().getImage(), false);
+        Image image = makeFXImage();
         this.material.setDiffuseMap(image);
         this.material.setSpecularMap(image); // Fixes polygon lighting.
     }
 
+    private Image makeFXImage() {
+        Image image = Utils.toFXImage(getTextureTree().getImage(), false);
+        this.fxImage = (image instanceof WritableImage) ? (WritableImage) image : null;
+        return image;
+    }
+
+    /**
+     * Makes sure the textures a polygon uses are in this texture map, adding them if they aren't.
+     * This lets a polygon which has been edited be shown without rebuilding the whole texture map.
+     * @param poly The polygon to add textures for.
+     * @return success. If false, the texture map has to be rebuilt with updateMap.
+     */
+    public boolean updatePolygon(MAPPolygon poly) {
+        if (poly instanceof MAPPolyTexture) {
+            MAPPolyTexture polyTex = (MAPPolyTexture) poly;
+            Map<BigInteger, Integer> identifiers = this.mapTextureList.get(polyTex.getTextureId());
+            boolean newTexture = identifiers == null || identifiers.isEmpty();
+            boolean wasOverlay = !newTexture && poly.isOverlay(this);
+            Tuple2<Short, BigInteger> oldTexture = countMapTexture(polyTex);
+
+            // In mixed mode, whether a texture is shaded as an overlay depends on how many versions of it there are, so this can change other polygons too.
+            boolean changedTexture = oldTexture != null && oldTexture.getA() != polyTex.getTextureId();
+            if (getMode() == ShaderMode.MIXED_SHADING && changedTexture)
+                return false; // The polygons still using the old texture may have changed too.
+
+            if (!newTexture && wasOverlay != poly.isOverlay(this))
+                return false;
+
+            if (poly.isOverlay(this) && addSource(poly.getGameImage(this)) == null)
+                return false;
+        }
+
+        return addSource(poly) != null;
+    }
+
+    private Tuple2<Short, BigInteger> countMapTexture(MAPPolyTexture polyTex) {
+        Tuple2<Short, BigInteger> newTexture = new Tuple2<>(polyTex.getTextureId(), polyTex.makeIdentifier(this));
+        Tuple2<Short, BigInteger> oldTexture = this.polygonTextureIds.put(polyTex, newTexture);
+        if (oldTexture != null) { // Stop counting what the polygon looked like before.
+            Map<BigInteger, Integer> oldIdentifiers = this.mapTextureList.get(oldTexture.getA());
+            if (oldIdentifiers != null && oldIdentifiers.merge(oldTexture.getB(), -1, Integer::sum) <= 0)
+                oldIdentifiers.remove(oldTexture.getB());
+        }
+
+        this.mapTextureList.computeIfAbsent(newTexture.getA(), key -> new HashMap<>()).merge(newTexture.getB(), 1, Integer::sum);
+        return oldTexture;
+    }
+
+    /**
+     * Adds a texture source to this texture map, if it isn't already in it.
+     * @param source The source to add.
+     * @return node, or null if there isn't room for it.
+     */
+    public TextureTreeNode addSource(TextureSource source) {
+        TextureTreeNode node = getNode(source);
+        if (node != null)
+            return node;
+
+        node = this.textureTree.addSource(source.makeIdentifier(this), source);
+        if (node != null && this.fxImage != null) { // Only copy the new part of the image to the material.
+            BufferedImage treeImage = this.textureTree.getImage();
+            int[] pixels = treeImage.getRGB(node.getX(), node.getY(), node.getWidth(), node.getHeight(), null, 0, node.getWidth());
+            this.fxImage.getPixelWriter().setPixels(node.getX(), node.getY(), node.getWidth(), node.getHeight(), PixelFormat.getIntArgbInstance(), pixels, 0, node.getWidth());
+        }
+
+        return node;
+    }
+
     /**
      * Updates this map texture map.
      * @param mapFile The map file to update for.
@@ -184,12 +258,10 @@ public class TextureMap {
     private Map<BigInteger, TextureSource> createSourceMap(MAPFile map) {
         // Calculate how many of each are used.
         this.mapTextureList.clear();
-        for (MAPPolygon poly : map.getAllPolygons()) {
-            if (poly instanceof MAPPolyTexture) {
-                MAPPolyTexture polyTex = (MAPPolyTexture) poly;
-                this.mapTextureList.computeIfAbsent(polyTex.getTextureId(), key -> new HashSet<>()).add(polyTex.makeIdentifier(this));
-            }
-        }
+        this.polygonTextureIds.clear();
+        for (MAPPolygon poly : map.getAllPolygons())
+            if (poly instanceof MAPPolyTexture)
+                countMapTexture((MAPPolyTexture) poly);
 
         // Calculate the polygon data.
         Map<BigInteger, TextureSource> texMap = new HashMap<>();
@@ -280,6 +352,10 @@ public class TextureMap {
         private int height; // Height of tree.
         private TextureTreeNode rootNode;
         private BufferedImage image;
+        private int overlayMinX; // Overlays are placed starting in the bottom right corner, growing out.
+        private int overlayMinY;
+        private int overlayX;
+        private int overlayY;
 
         public TextureTree(TextureMap parentMap) {
             this.parentMap = parentMap;
@@ -299,10 +375,10 @@ public class TextureMap {
 
             this.accessMap.clear();
 
-            int minX = getWidth() - MAPFile.VERTEX_COLOR_IMAGE_SIZE; // Our goal is to start in the bottom right corner, and grow out.
-            int minY = getHeight() - MAPFile.VERTEX_COLOR_IMAGE_SIZE;
-            int x = minX;
-            int y = minY;
+            this.overlayMinX = getWidth() - MAPFile.VERTEX_COLOR_IMAGE_SIZE; // Our goal is to start in the bottom right corner, and grow out.
+            this.overlayMinY = getHeight() - MAPFile.VERTEX_COLOR_IMAGE_SIZE;
+            this.overlayX = this.overlayMinX;
+            this.overlayY = this.overlayMinY;
 
             List<TextureEntry> images = new ArrayList<>();
             for (BigInteger key : sourceMap.keySet()) {
@@ -310,20 +386,7 @@ public class TextureMap {
 
                 BufferedImage image = source.makeTexture(getParentMap());
                 if (source.isOverlay(getParentMap())) {
-                    this.accessMap.put(key, TextureTreeNode.newNode(this, x, y, image.getWidth(), image.getHeight(), image));
-
-                    if (y > minY) {
-                        y -= image.getHeight();
-                    } else {
-                        x += image.getWidth();
-                    }
-
-                    if (minY >= y && x >= getWidth()) { // We've reached the end of the cycle, time to reset.
-                        minX -= image.getWidth();
-                        minY -= image.getHeight();
-                        x = minX;
-                        y = getHeight() - MAPFile.VERTEX_COLOR_IMAGE_SIZE;
-                    }
+                    this.accessMap.put(key, placeOverlay(image));
                 } else {
                     images.add(new TextureEntry(key, source, image));
                 }
@@ -349,6 +412,54 @@ public class TextureMap {
             updateImage();
         }
 
+        private TextureTreeNode placeOverlay(BufferedImage image) {
+            TextureTreeNode node = TextureTreeNode.newNode(this, this.overlayX, this.overlayY, image.getWidth(), image.getHeight(), image);
+
+            if (this.overlayY > this.overlayMinY) {
+                this.overlayY -= image.getHeight();
+            } else {
+                this.overlayX += image.getWidth();
+            }
+
+            if (this.overlayMinY >= this.overlayY && this.overlayX >= getWidth()) { // We've reached the end of the cycle, time to reset.
+                this.overlayMinX -= image.getWidth();
+                this.overlayMinY -= image.getHeight();
+                this.overlayX = this.overlayMinX;
+                this.overlayY = getHeight() - MAPFile.VERTEX_COLOR_IMAGE_SIZE;
+            }
+
+            return node;
+        }
+
+        /**
+         * Adds a single texture source to the tree, and draws it onto the image.
+         * @param id     The identifier of the source.
+         * @param source The source to add.
+         * @return node, or null if there isn't room for it.
+         */
+        public TextureTreeNode addSource(BigInteger id, TextureSource source) {
+            BufferedImage image = source.makeTexture(getParentMap());
+
+            TextureTreeNode node;
+            if (source.isOverlay(getParentMap())) {
+                node = placeOverlay(image);
+                if (node.getX() < 0 || node.getY() < 0 || node.getX() + node.getWidth() > getWidth() || node.getY() + node.getHeight() > getHeight())
+                    return null;
+            } else {
+                GameImage gameImage = source.getGameImage(getParentMap());
+                node = gameImage != null ? insert(gameImage) : null;
+                if (node == null)
+                    return null;
+                node.setImage(image);
+            }
+
+            this.accessMap.put(id, node);
+            Graphics2D graphics = this.image.createGraphics();
+            graphics.drawImage(node.getImage(), node.getX(), node.getY(), node.getWidth(), node.getHeight(), null);
+            graphics.dispose();
+            return node;
+        }
+
         @Getter
         @AllArgsConstructor
         private static class TextureEntry {
@@ -511,11 +622,29 @@ public class TextureMap {
          * @param vertCount The amount of vertices to add.
          */
         public void applyMesh(FrogMesh mesh, int vertCount) {
-            mesh.getTexCoords().addAll(getMinU(), getMinV());
-            mesh.getTexCoords().addAll(getMinU(), getMaxV());
-            mesh.getTexCoords().addAll(getMaxU(), getMinV());
-            if (vertCount == MAPPolygon.QUAD_SIZE)
-                mesh.getTexCoords().addAll(getMaxU(), getMaxV());
+            float[] texCoords = new float[MAPPolygon.QUAD_SIZE * 2];
+            mesh.getTexCoords().addAll(texCoords, 0, getTexCoords(vertCount, texCoords));
+        }
+
+        /**
+         * Gets the texture coordinates of this node, in the order applyMesh adds them.
+         * @param vertCount The amount of vertices to get coordinates for.
+         * @param output    The array to write the coordinates to.
+         * @return The number of floats written.
+         */
+        public int getTexCoords(int vertCount, float[] output) {
+            output[0] = getMinU();
+            output[1] = getMinV();
+            output[2] = getMinU();
+            output[3] = getMaxV();
+            output[4] = getMaxU();
+            output[5] = getMinV();
+            if (vertCount != MAPPolygon.QUAD_SIZE)
+                return 6;
+
+            output[6] = getMaxU();
+            output[7] = getMaxV();
+            return 8;
         }
 
         /**
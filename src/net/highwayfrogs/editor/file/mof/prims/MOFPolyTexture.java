@@ -8,6 +8,8 @@ import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolyGT;
 import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolyTexture;
 import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolygon;
 import net.highwayfrogs.editor.file.map.view.FrogMesh;
+import net.highwayfrogs.editor.file.map.view.ShadedTextureCache;
+import net.highwayfrogs.editor.file.map.view.ShadedTextureCache.ShadeType;
 import net.highwayfrogs.editor.file.map.view.TextureMap;
 import net.highwayfrogs.editor.file.map.view.TextureMap.ShaderMode;
 import net.highwayfrogs.editor.file.mof.MOFPart;
@@ -115,10 +117,12 @@ public class MOFPolyTexture extends MOFPolygon implements TexturedPoly {
         if (map.getMode() == ShaderMode.NO_SHADING) {
             return getGameImage(map).toBufferedImage(map.getDisplaySettings());
         } else if (map.getMode() == ShaderMode.OVERLAY_SHADING) {
-            return makeShadeImage(MAPFile.VERTEX_COLOR_IMAGE_SIZE, MAPFile.VERTEX_COLOR_IMAGE_SIZE, false);
+            return map.getShadedTextureCache().getImage(ShadeType.FLAT_OVERLAY, ShadedTextureCache.NO_TEXTURE, MAPFile.VERTEX_COLOR_IMAGE_SIZE, MAPFile.VERTEX_COLOR_IMAGE_SIZE,
+                    new int[]{getColor().toRGB()}, null, () -> makeShadeImage(MAPFile.VERTEX_COLOR_IMAGE_SIZE, MAPFile.VERTEX_COLOR_IMAGE_SIZE, false));
         } else {
             BufferedImage texture = getGameImage(map).toBufferedImage(map.getDisplaySettings());
-            return MAPPolyTexture.makeShadedTexture(texture, makeShadeImage(texture.getWidth(), texture.getHeight(), true));
+            return map.getShadedTextureCache().getImage(ShadeType.MODEL_FLAT_TEXTURE, (short) getUseTextureId(map), texture.getWidth(), texture.getHeight(),
+                    new int[]{getColor().toRGB()}, texture, () -> MAPPolyTexture.makeShadedTexture(texture, makeShadeImage(texture.getWidth(), texture.getHeight(), true)));
         }
     }
 
@@ -141,9 +145,9 @@ public class MOFPolyTexture extends MOFPolygon implements TexturedPoly {
         if (map.getMode() == ShaderMode.NO_SHADING || (map.isUseModelTextureAnimation() && this.viewImageId != (short) -1)) {
             return makeIdentifier(0x7E8BA5E, getUseTextureId(map));
         } else if (isOverlay(map)) {
-            return makeIdentifier(0xF1A754AD, getColor().toRGB());
+            return makeIdentifier(0xF1A754AD, ShadedTextureCache.quantizeColor(getColor().toRGB()));
         } else {
-            return makeIdentifier(0xF1A77E8, getImageId(), getColor().toRGB());
+            return makeIdentifier(0xF1A77E8, getUseTextureId(map), ShadedTextureCache.quantizeColor(getColor().toRGB()));
         }
     }
 
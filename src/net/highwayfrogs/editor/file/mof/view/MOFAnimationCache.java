@@ -0,0 +1,122 @@
+package net.highwayfrogs.editor.file.mof.view;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.highwayfrogs.editor.file.mof.MOFHolder;
+import net.highwayfrogs.editor.file.mof.MOFPart;
+import net.highwayfrogs.editor.file.mof.MOFPartcel;
+import net.highwayfrogs.editor.file.standard.IVector;
+import net.highwayfrogs.editor.file.standard.SVector;
+import net.highwayfrogs.editor.file.standard.psx.PSXMatrix;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Holds the vertex positions of a model for each frame of its animations, so changing frames doesn't require transforming every vertex again.
+ * Frames are calculated the first time they're shown, and only the most recently used actions are kept.
+ */
+@Getter
+public class MOFAnimationCache {
+    private final MOFHolder holder;
+    private final int maxActions;
+    private final Map<Integer, BakedFrame[]> bakedActions;
+
+    public static final int DEFAULT_MAX_ACTIONS = 8;
+    public static final int NO_ACTION = -1;
+
+    public MOFAnimationCache(MOFHolder holder) {
+        this(holder, DEFAULT_MAX_ACTIONS);
+    }
+
+    public MOFAnimationCache(MOFHolder holder, int maxActions) {
+        this.holder = holder;
+        this.maxActions = maxActions;
+        this.bakedActions = new LinkedHashMap<Integer, BakedFrame[]>(16, .75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Entry<Integer, BakedFrame[]> eldest) {
+                return size() > MOFAnimationCache.this.maxActions;
+            }
+        };
+    }
+
+    /**
+     * Gets the vertex positions of the model at a given frame, calculating them if they haven't been yet.
+     * @param action The action to get the frame from, or NO_ACTION for the model without any animation.
+     * @param frame  The frame to get.
+     * @return bakedFrame
+     */
+    public BakedFrame getFrame(int action, int frame) {
+        BakedFrame[] frames = this.bakedActions.get(action);
+        if (frames == null || frame >= frames.length)
+            this.bakedActions.put(action, frames = new BakedFrame[action != NO_ACTION ? Math.max(frame + 1, this.holder.getFrameCount(action)) : 1]);
+
+        BakedFrame bakedFrame = frames[frame];
+        if (bakedFrame == null)
+            frames[frame] = bakedFrame = bakeFrame(action, frame);
+        return bakedFrame;
+    }
+
+    /**
+     * Forget all calculated frames. This should be called if the model changes.
+     */
+    public void clear() {
+        this.bakedActions.clear();
+    }
+
+    private BakedFrame bakeFrame(int action, int frame) {
+        List<MOFPart> parts = this.holder.asStaticFile().getParts();
+        boolean hasAnimation = (action != NO_ACTION);
+        boolean transformVertices = hasAnimation && this.holder.isAnimatedMOF();
+
+        int vertexCount = 0;
+        int[] partVertexCounts = new int[parts.size()];
+        MOFPartcel[] partcels = new MOFPartcel[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            MOFPart part = parts.get(i);
+            if (part.shouldHide())
+                continue;
+
+            partcels[i] = hasAnimation ? part.getCel(action, frame) : part.getStaticPartcel();
+            partVertexCounts[i] = partcels[i].getVertices().size();
+            vertexCount += partVertexCounts[i];
+        }
+
+        float[] points = new float[vertexCount * 3];
+        IVector transformed = new IVector();
+        int index = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            if (partcels[i] == null)
+                continue;
+
+            // The part transform is the same for every vertex in the part, so it's only calculated once.
+            PSXMatrix transform = transformVertices ? this.holder.getAnimatedFile().getTransform(parts.get(i), action, frame).calculatePartTransform() : null;
+            for (SVector vertex : partcels[i].getVertices()) {
+                if (transform != null) {
+                    PSXMatrix.MRApplyMatrix(transform, vertex, transformed);
+                    points[index++] = transformed.getFloatX();
+                    points[index++] = transformed.getFloatY();
+                    points[index++] = transformed.getFloatZ();
+                } else {
+                    points[index++] = vertex.getFloatX();
+                    points[index++] = vertex.getFloatY();
+                    points[index++] = vertex.getFloatZ();
+                }
+            }
+        }
+
+        return new BakedFrame(points, partVertexCounts);
+    }
+
+    /**
+     * The vertex positions of a model at a single frame.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BakedFrame {
+        private final float[] points; // Packed x, y, z for each shown vertex, in the same order as the mesh.
+        private final int[] partVertexCounts; // The number of vertices each part has on this frame. Hidden parts have zero.
+    }
+}
@@ -10,7 +10,6 @@ import net.highwayfrogs.editor.file.map.view.TextureMap.TextureTreeNode;
 import net.highwayfrogs.editor.file.mof.MOFHolder;
 import net.highwayfrogs.editor.file.mof.MOFPart;
 import net.highwayfrogs.editor.file.mof.MOFPartcel;
-import net.highwayfrogs.editor.file.mof.animation.transform.TransformObject;
 import net.highwayfrogs.editor.file.mof.poly_anim.MOFPartPolyAnim;
 import net.highwayfrogs.editor.file.mof.poly_anim.MOFPartPolyAnimEntry;
 import net.highwayfrogs.editor.file.mof.prims.MOFPolyTexture;
@@ -21,6 +20,7 @@ import net.highwayfrogs.editor.file.standard.Vector;
 import net.highwayfrogs.editor.file.standard.psx.PSXMatrix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -34,11 +34,14 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
     private int animationId;
     private int frameCount;
     private List<Vector> verticeCache = new ArrayList<>();
+    private MOFAnimationCache animationCache;
+    private int[] faceLayout; // The number of vertices each part had when the faces were last built.
     @Setter private boolean showOverlay;
 
     public MOFMesh(MOFHolder holder) {
         super(holder.makeTextureMap(), VertexFormat.POINT_TEXCOORD);
         this.mofHolder = holder;
+        this.animationCache = new MOFAnimationCache(holder);
         updateData();
     }
 
@@ -46,12 +49,16 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
     public void onUpdatePolygonData() {
         AtomicInteger texId = new AtomicInteger();
 
-        for (MOFPart part : getMofHolder().asStaticFile().getParts()) {
+        List<MOFPart> parts = getMofHolder().asStaticFile().getParts();
+        this.faceLayout = new int[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            MOFPart part = parts.get(i);
             if (part.shouldHide())
                 continue;
 
             part.getMofPolygons().values().forEach(list -> list.forEach(poly -> addPolygon(poly, texId)));
-            setVerticeStart(getVerticeStart() + part.getCel(getAction(), getFrame()).getVertices().size());
+            this.faceLayout[i] = part.getCel(getAction(), getFrame()).getVertices().size();
+            setVerticeStart(getVerticeStart() + this.faceLayout[i]);
 
             for (MOFPartPolyAnim partPolyAnim : part.getPartPolyAnims()) {
                 MOFPolygon mofPolygon = partPolyAnim.getMofPolygon();
@@ -78,6 +85,12 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
             poly.onMeshSetup(this);
     }
 
+    @Override
+    public void updateVertices() {
+        float[] points = getBakedFrame().getPoints();
+        writePoints(points, points.length);
+    }
+
     @Override
     public List<Vector> getVertices() {
         this.verticeCache.clear();
@@ -87,9 +100,9 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
 
             MOFPartcel partcel = hasEnabledAnimation() ? part.getCel(getAction(), getFrame()) : part.getStaticPartcel();
             if (getMofHolder().isAnimatedMOF() && hasEnabledAnimation()) {
-                TransformObject transform = getMofHolder().getAnimatedFile().getTransform(part, getAction(), getFrame());
+                PSXMatrix transform = getMofHolder().getAnimatedFile().getTransform(part, getAction(), getFrame()).calculatePartTransform();
                 for (SVector vertex : partcel.getVertices())
-                    this.verticeCache.add(PSXMatrix.MRApplyMatrix(transform.calculatePartTransform(), vertex, new IVector()));
+                    this.verticeCache.add(PSXMatrix.MRApplyMatrix(transform, vertex, new IVector()));
             } else {
                 this.verticeCache.addAll(partcel.getVertices());
             }
@@ -97,8 +110,13 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
         return this.verticeCache;
     }
 
+    private MOFAnimationCache.BakedFrame getBakedFrame() {
+        return this.animationCache.getFrame(hasEnabledAnimation() ? this.animationId : MOFAnimationCache.NO_ACTION, getFrame());
+    }
+
     /**
      * Set the animation frame.
+     * If only the vertex positions change between frames, only they are updated. Otherwise, the whole mesh is rebuilt.
      * @param newFrame The frame to use.
      */
     public void setFrame(int newFrame) {
@@ -106,7 +124,14 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
             newFrame = getMofHolder().getFrameCount(this.animationId) + newFrame;
 
         this.frameCount = (newFrame % getMofHolder().getFrameCount(this.animationId));
-        updateData();
+
+        // Texture animations change texture coordinates, and a part with a different number of vertices moves the vertices of the faces after it, so those need the faces rebuilt.
+        MOFAnimationCache.BakedFrame frame = getBakedFrame();
+        if (!getMofHolder().asStaticFile().hasTextureAnimation() && Arrays.equals(frame.getPartVertexCounts(), this.faceLayout)) {
+            writePoints(frame.getPoints(), frame.getPoints().length);
+        } else {
+            updateData();
+        }
     }
 
     /**
@@ -124,10 +149,12 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
     }
 
     /**
-     * Update this frame.
+     * Update this frame, rebuilding the whole mesh. This should be used when the model or how it is shown changes.
      */
     public void updateFrame() {
-        setFrame(this.frameCount);
+        this.animationCache.clear();
+        this.frameCount %= getMofHolder().getFrameCount(this.animationId);
+        updateData();
     }
 
     /**
@@ -188,7 +215,7 @@ public class MOFMesh extends FrogMesh<MOFPolygon> {
         int increment = getVertexFormat().getVertexIndexSize();
         boolean isQuad = (targetPoly.getVerticeCount() == MAPPolygon.QUAD_SIZE);
 
-        int face = getPolyFaceMap().get(targetPoly) * getFaceElementSize();
+        int face = getFace(targetPoly) * getFaceElementSize();
         int v1 = getFaces().get(face);
         int v2 = getFaces().get(face + increment);
         int v3 = getFaces().get(face + (2 * increment));
@@ -308,6 +308,21 @@ public class DataReader {
         skipBytes(Constants.BYTE_SIZE);
     }
 
+    /**
+     * Gets all of the bytes this reader reads from. If possible, this is the array backing the reader, rather than a copy.
+     * This does not change the reader index.
+     * @return sourceBytes
+     */
+    public byte[] getSourceBytes() {
+        if (this.source instanceof ArraySource)
+            return ((ArraySource) this.source).getData();
+
+        jumpTemp(0);
+        byte[] bytes = readBytes(getSize());
+        jumpReturn();
+        return bytes;
+    }
+
     /**
      * Create a sub-reader.
      * @param startOffset The offset to start reading from.
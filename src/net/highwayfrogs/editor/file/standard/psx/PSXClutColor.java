@@ -84,6 +84,19 @@ public class PSXClutColor extends GameObject {
         return Utils.readNumberFromBytes(arr);
     }
 
+    /**
+     * Gets this color as an ARGB integer, as used by GameImage.
+     * Semi-transparent colors have an alpha of 0xFE, so they can be told apart from other colors.
+     * @return argbColor
+     */
+    public int toARGB() {
+        return toARGB(getRed(), getGreen(), getBlue(), isStp());
+    }
+
+    private static int toARGB(byte red, byte green, byte blue, boolean stp) {
+        return ((stp ? 0xFE : 0xFF) << 24) | ((red << TO_FULL_BYTE) << 16) | ((green << TO_FULL_BYTE) << 8) | (blue << TO_FULL_BYTE);
+    }
+
     /**
      * Get this value as a BGRA integer.
      */
@@ -114,30 +127,25 @@ public class PSXClutColor extends GameObject {
     }
 
     /**
-     * Turn an RGBA byte array into a PSXClutColor.
-     * @param array The array to read RGBA bytes from.
-     * @param index The index to read color data from.
+     * Turn an ARGB integer, as used by GameImage, into a PSXClutColor.
+     * @param argb The ARGB color. Any alpha other than 0xFF is treated as semi-transparent.
      * @return clutColor
      */
-    public static PSXClutColor fromRGBA(byte[] array, int index) {
-        return fromRGBA(array[index + 3], array[index + 2], array[index + 1], array[index]);
+    public static PSXClutColor fromARGB(int argb) {
+        PSXClutColor color = new PSXClutColor();
+        color.red = (byte) (((argb >> 16) & 0xFF) >> TO_FULL_BYTE);
+        color.green = (byte) (((argb >> 8) & 0xFF) >> TO_FULL_BYTE);
+        color.blue = (byte) ((argb & 0xFF) >> TO_FULL_BYTE);
+        color.setStp((argb >>> 24) != 0xFF);
+        return color;
     }
 
     /**
-     * Reads a PSXClutColor from a 16bit short into an RGBA int.
+     * Reads a PSXClutColor from a 16bit short into an ARGB int, as used by GameImage.
      * @param color The short to read from.
-     * @return rgbaColor
+     * @return argbColor
      */
     public static int readColorFromShort(short color) {
-        byte blue = getByte(color, BLUE_OFFSET);
-        byte green = getByte(color, GREEN_OFFSET);
-        byte red = getByte(color, RED_OFFSET);
-        boolean stp = (color & STP_FLAG) == STP_FLAG;
-        byte[] arr = new byte[4]; //RGBA
-        arr[0] = Utils.unsignedShortToByte((short) (Utils.byteToUnsignedShort(red) << TO_FULL_BYTE));
-        arr[1] = Utils.unsignedShortToByte((short) (Utils.byteToUnsignedShort(green) << TO_FULL_BYTE));
-        arr[2] = Utils.unsignedShortToByte((short) (Utils.byteToUnsignedShort(blue) << TO_FULL_BYTE));
-        arr[3] = (byte) (stp ? 0x01 : 0x00);
-        return Utils.readNumberFromBytes(arr);
+        return toARGB(getByte(color, RED_OFFSET), getByte(color, GREEN_OFFSET), getByte(color, BLUE_OFFSET), (color & STP_FLAG) == STP_FLAG);
     }
 }
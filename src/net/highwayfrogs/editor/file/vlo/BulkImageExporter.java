@@ -0,0 +1,97 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import lombok.Getter;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+/**
+ * Exports many images as PNGs at once, making and encoding them on a pool of worker threads.
+ * The queue of waiting images is bounded, so if images are submitted faster than they can be encoded, the submitting thread helps encode them instead of queueing up every image in memory.
+ * Files which already contain exactly what would be written are left alone.
+ */
+@Getter
+public class BulkImageExporter {
+    private final int deflateLevel;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger writtenCount = new AtomicInteger();
+    private final AtomicInteger unchangedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private final long startTime = System.currentTimeMillis();
+
+    public static final int DEFAULT_DEFLATE_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int QUEUED_IMAGES_PER_THREAD = 4;
+
+    public BulkImageExporter() {
+        this(DEFAULT_DEFLATE_LEVEL);
+    }
+
+    public BulkImageExporter(int deflateLevel) {
+        this(deflateLevel, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BulkImageExporter(int deflateLevel, int threadCount) {
+        this.deflateLevel = deflateLevel;
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threadCount * QUEUED_IMAGES_PER_THREAD), runnable -> {
+            Thread thread = new Thread(runnable, "Image Exporter");
+            thread.setDaemon(true);
+            return thread;
+        }, new CallerRunsPolicy());
+    }
+
+    /**
+     * Queue an image to be exported.
+     * @param file       The file to save the image to.
+     * @param imageMaker Creates the image. This is run on a worker thread.
+     */
+    public void exportImage(File file, Supplier<BufferedImage> imageMaker) {
+        this.executor.execute(() -> {
+            try {
+                writeImage(file, PNGEncoder.encode(imageMaker.get(), this.deflateLevel));
+            } catch (Throwable th) {
+                this.failedCount.incrementAndGet();
+                System.out.println("Failed to export '" + file.getName() + "'.");
+                th.printStackTrace();
+            }
+        });
+    }
+
+    private void writeImage(File file, byte[] pngBytes) throws Exception {
+        if (file.length() == pngBytes.length && Arrays.equals(Files.readAllBytes(file.toPath()), pngBytes)) {
+            this.unchangedCount.incrementAndGet();
+            return; // The file already has this image, so there's no need to write it again.
+        }
+
+        Files.write(file.toPath(), pngBytes);
+        this.writtenCount.incrementAndGet();
+    }
+
+    /**
+     * Wait for all queued images to be exported, then report how it went.
+     * No more images can be exported after this is called.
+     */
+    public void finish() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for images to export.", ex);
+        }
+
+        int imageCount = this.writtenCount.get() + this.unchangedCount.get();
+        double seconds = Math.max(1, System.currentTimeMillis() - this.startTime) / 1000D;
+        System.out.println(String.format("Exported %d image(s) in %.2f seconds. (%.1f images/s, %d unchanged, %d failed)",
+                imageCount, seconds, imageCount / seconds, this.unchangedCount.get(), this.failedCount.get()));
+    }
+}
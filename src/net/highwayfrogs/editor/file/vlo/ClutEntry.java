@@ -22,6 +22,7 @@ public class ClutEntry extends GameObject {
     private PSXRect clutRect = new PSXRect();
     private List<PSXClutColor> colors = new ArrayList<>();
     private transient int tempSaveColorsPointer;
+    private transient int[] loadedPalette; // The colors as they were loaded, in ARGB. Image pixels are decoded with this.
 
     private static final int BYTE_SIZE = PSXRect.BYTE_SIZE + Constants.INTEGER_SIZE;
 
@@ -33,10 +34,12 @@ public class ClutEntry extends GameObject {
         reader.jumpTemp(clutOffset);
 
         // Read clut.
-        for (int i = 0; i < calculateColorCount(); i++) {
+        this.loadedPalette = new int[calculateColorCount()];
+        for (int i = 0; i < this.loadedPalette.length; i++) {
             PSXClutColor color = new PSXClutColor();
             color.load(reader);
             colors.add(color);
+            this.loadedPalette[i] = color.toARGB();
         }
 
         reader.jumpReturn();
@@ -62,6 +65,14 @@ public class ClutEntry extends GameObject {
         this.colors.forEach(color -> color.save(writer));
     }
 
+    /**
+     * Gets the clut id which images use to reference this clut.
+     * @return clutId
+     */
+    public short getClutId() {
+        return (short) ((getClutRect().getX() >> 4) | (getClutRect().getY() << 6));
+    }
+
     /**
      * Calculate the number of colors this entry holds.
      * @return colorCount
@@ -2,6 +2,7 @@ package net.highwayfrogs.editor.file.vlo;
 
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.image.Image;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
@@ -16,13 +17,13 @@ import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.utils.Utils;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.awt.image.*;
+import java.lang.ref.SoftReference;
 import java.math.BigInteger;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * A singular game image. MR_TXSETUP struct.
@@ -42,14 +43,19 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
     private short clutId;
     private byte ingameWidth; // In-game texture width, used to remove texture padding.
     private byte ingameHeight;
-    private byte[] imageBytes;
+    @Setter(AccessLevel.NONE) private int[] pixels; // ARGB, not premultiplied. Row-major, starting at the top left. Null until the image is replaced, see getPixels(). May be shared with other images, so never modify it.
     private ImageClutMode clutMode; // TPF
     private int abr; // ABR.
 
     private transient int tempSaveImageDataPointer;
-    private transient BufferedImage cachedImage;
+    @Setter(AccessLevel.NONE) private transient SoftReference<BufferedImage> cachedImage; // Shares the pixel array, so this is very small.
+    @Setter(AccessLevel.NONE) private transient SoftReference<int[]> unmodifiedPixels; // Pixels decoded from the VLO. These can be dropped when memory is tight, since they can be decoded again.
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE) private transient byte[] sourceData; // The data of the VLO this image was loaded from. Shared by all images in the VLO.
+    @Setter(AccessLevel.NONE) private transient int sourceOffset; // Where this image's pixel data starts in sourceData.
+    @Setter(AccessLevel.NONE) private transient int[] sourcePalette; // The ARGB colors of the clut this image was loaded with. (PSX Only)
 
     public static final int MAX_DIMENSION = 256;
+    private static final int[] ARGB_BIT_MASKS = {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
     private static final int PC_BYTES_PER_PIXEL = 4;
     public static final int PC_PAGE_WIDTH = 256;
     public static final int PC_PAGE_HEIGHT = 256;
@@ -105,37 +111,12 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
         this.ingameWidth = reader.readByte();
         this.ingameHeight = reader.readByte();
 
-        reader.jumpTemp(offset);
+        // Pixels are decoded the first time they're used, since most images are never looked at.
+        this.sourceData = reader.getSourceBytes();
+        this.sourceOffset = offset;
+        if (getParent().isPsxMode() && getClutMode() != ImageClutMode.MODE_15BIT_NO_CLUT) // The clut is regenerated on save, so remember the colors the pixels were loaded with.
+            this.sourcePalette = getClut().getLoadedPalette();
 
-        int pixelCount = getFullWidth() * getFullHeight();
-        if (getParent().isPsxMode()) {
-            ByteBuffer buffer = ByteBuffer.allocate(PC_BYTES_PER_PIXEL * pixelCount);
-
-            if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT) { // Used in PS1 demo. Example: Frogger's eye, VOL@35 (The fireball texture)
-                for (int i = 0; i < pixelCount; i++)
-                    buffer.putInt(PSXClutColor.readColorFromShort(reader.readShort()));
-            } else if (getClutMode() == ImageClutMode.MODE_8BIT) { // Used in PS1 release. Example: STARTNTSC.VLO
-                ClutEntry clut = getClut();
-                for (int i = 0; i < pixelCount; i++)
-                    readPSXPixel(reader.readUnsignedByteAsShort(), clut, buffer);
-            } else { // 4bit (normal) mode.
-                ClutEntry clut = getClut();
-                for (int i = 0; i < pixelCount / 2; i++) { // We read two pixels per iteration.
-                    short value = reader.readUnsignedByteAsShort();
-                    int low = value & 0x0F;
-                    int high = value >> 4;
-
-                    readPSXPixel(low, clut, buffer);
-                    readPSXPixel(high, clut, buffer);
-                }
-            }
-
-            this.imageBytes = buffer.array();
-        } else {
-            this.imageBytes = reader.readBytes(pixelCount * PC_BYTES_PER_PIXEL);
-        }
-
-        reader.jumpReturn();
         if (readU != getU() || readV != getV())
             System.out.println(getParent().getFileEntry().getDisplayName() + "@" + getParent().getImages().size() + " UV Mismatch! [" + readU + "," + readV + "] [" + getU() + "," + getV() + "]");
     }
@@ -175,14 +156,30 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
     }
 
     private void writeImageBytes(DataWriter writer) {
+        if (!getParent().isPsxMode() && this.pixels == null && this.sourceData != null) { // The image hasn't changed, so the data we loaded can be saved as-is.
+            writer.writeBytes(Arrays.copyOfRange(this.sourceData, this.sourceOffset, this.sourceOffset + (getFullWidth() * getFullHeight() * PC_BYTES_PER_PIXEL)));
+            return;
+        }
+
+        int[] pixels = getPixels();
         if (!getParent().isPsxMode()) {
-            writer.writeBytes(getImageBytes()); // The image bytes as they are loaded are already as they should be when saved.
+            byte[] imageBytes = new byte[pixels.length * PC_BYTES_PER_PIXEL];
+            for (int i = 0; i < pixels.length; i++) { // ARGB -> ABGR (Inverted alpha)
+                int index = i * PC_BYTES_PER_PIXEL;
+                int pixel = pixels[i];
+                imageBytes[index] = (byte) (0xFF - (pixel >>> 24));
+                imageBytes[index + 1] = (byte) pixel;
+                imageBytes[index + 2] = (byte) (pixel >> 8);
+                imageBytes[index + 3] = (byte) (pixel >> 16);
+            }
+
+            writer.writeBytes(imageBytes);
             return;
         }
 
         if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT) {
-            for (int i = 0; i < getImageBytes().length; i += PC_BYTES_PER_PIXEL)
-                PSXClutColor.fromRGBA(this.imageBytes, i).save(writer);
+            for (int pixel : pixels)
+                PSXClutColor.fromARGB(pixel).save(writer);
             return;
         }
 
@@ -190,8 +187,8 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
         clut.getColors().clear(); // Generate a new clut.
         int maxColors = getClut().calculateColorCount();
 
-        for (int i = 0; i < getImageBytes().length; i += PC_BYTES_PER_PIXEL) {
-            PSXClutColor color = PSXClutColor.fromRGBA(this.imageBytes, i);
+        for (int pixel : pixels) {
+            PSXClutColor color = PSXClutColor.fromARGB(pixel);
             if (!clut.getColors().contains(color))
                 clut.getColors().add(color);
         }
@@ -202,12 +199,12 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
         clut.getColors().sort(Comparator.comparingInt(PSXClutColor::toRGBA));
 
         if (getClutMode() == ImageClutMode.MODE_8BIT) {
-            for (int i = 0; i < getImageBytes().length; i += PC_BYTES_PER_PIXEL)
-                writer.writeByte((byte) clut.getColors().indexOf(PSXClutColor.fromRGBA(this.imageBytes, i)));
+            for (int pixel : pixels)
+                writer.writeByte((byte) clut.getColors().indexOf(PSXClutColor.fromARGB(pixel)));
         } else if (getClutMode() == ImageClutMode.MODE_4BIT) {
-            for (int i = 0; i < getImageBytes().length; i += (PC_BYTES_PER_PIXEL * 2)) {
-                PSXClutColor color1 = PSXClutColor.fromRGBA(this.imageBytes, i);
-                PSXClutColor color2 = PSXClutColor.fromRGBA(this.imageBytes, i + PC_BYTES_PER_PIXEL);
+            for (int i = 0; i < pixels.length; i += 2) {
+                PSXClutColor color1 = PSXClutColor.fromARGB(pixels[i]);
+                PSXClutColor color2 = PSXClutColor.fromARGB(pixels[i + 1]);
                 writer.writeByte((byte) (clut.getColors().indexOf(color1) | (clut.getColors().indexOf(color2) << 4)));
             }
         } else {
@@ -220,6 +217,56 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
             clut.getColors().add(unused);
     }
 
+    /**
+     * Gets the pixels of this image, decoding them if they have not been decoded yet.
+     * Pixels are ARGB, not premultiplied, row-major starting at the top left.
+     * Identical pixels are shared between images (see PixelStore), so the returned array must not be modified.
+     * @return pixels
+     */
+    public synchronized int[] getPixels() {
+        if (this.pixels != null)
+            return this.pixels;
+
+        int[] decodedPixels = this.unmodifiedPixels != null ? this.unmodifiedPixels.get() : null;
+        if (decodedPixels == null) {
+            decodedPixels = PixelStore.getInstance().intern(this, decodePixels()); // If another image has the same pixels, share them.
+            this.unmodifiedPixels = new SoftReference<>(decodedPixels);
+        }
+
+        return decodedPixels;
+    }
+
+    private int[] decodePixels() {
+        // The pixel data is read straight out of the source array, since this is hot enough that per-pixel reader calls add up.
+        byte[] data = this.sourceData;
+        int index = this.sourceOffset;
+        int[] palette = this.sourcePalette;
+
+        int pixelCount = getFullWidth() * getFullHeight();
+        int[] pixels = new int[pixelCount];
+        if (getParent().isPsxMode()) {
+            if (getClutMode() == ImageClutMode.MODE_15BIT_NO_CLUT) { // Used in PS1 demo. Example: Frogger's eye, VOL@35 (The fireball texture)
+                for (int i = 0; i < pixelCount; i++, index += Constants.SHORT_SIZE)
+                    pixels[i] = PSXClutColor.readColorFromShort((short) ((data[index] & 0xFF) | (data[index + 1] << 8)));
+            } else if (getClutMode() == ImageClutMode.MODE_8BIT) { // Used in PS1 release. Example: STARTNTSC.VLO
+                for (int i = 0; i < pixelCount; i++)
+                    pixels[i] = palette[data[index++] & 0xFF];
+            } else { // 4bit (normal) mode.
+                for (int i = 0; i < pixelCount; i += 2) { // We read two pixels per iteration.
+                    int value = data[index++] & 0xFF;
+                    pixels[i] = palette[value & 0x0F];
+                    pixels[i + 1] = palette[value >>> 4];
+                }
+            }
+        } else {
+            for (int i = 0; i < pixelCount; i++, index += PC_BYTES_PER_PIXEL) // ABGR (Inverted alpha) -> ARGB
+                pixels[i] = ((0xFF - (data[index] & 0xFF)) << 24) | ((data[index + 3] & 0xFF) << 16)
+                        | ((data[index + 2] & 0xFF) << 8) | (data[index + 1] & 0xFF);
+        }
+
+        return pixels;
+    }
+
     /**
      * Calculates the page this image lies in.
      * @return page
@@ -289,19 +336,8 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
         return (short) ((getVramY() % (getParent().isPsxMode() ? PSX_PAGE_HEIGHT : PC_PAGE_HEIGHT)) + ((getFullHeight() - getIngameHeight()) / 2));
     }
 
-    private void readPSXPixel(int clutIndex, ClutEntry clut, ByteBuffer buffer) {
-        buffer.putInt(clut.getColors().get(clutIndex).toRGBA());
-    }
-
     private ClutEntry getClut() {
-        int clutX = ((clutId & 0x3F) << 4);
-        int clutY = (clutId >> 6);
-
-        for (ClutEntry testEntry : getParent().getClutEntries())
-            if (testEntry.getClutRect().getX() == clutX && testEntry.getClutRect().getY() == clutY)
-                return testEntry;
-
-        throw new RuntimeException("FAiled to find clut for coordinates [" + clutX + ", " + clutY + "].");
+        return getParent().getClutById(this.clutId);
     }
 
     /**
@@ -329,52 +365,128 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
      * @param image The new image to use.
      */
     public void replaceImage(BufferedImage image) {
-        image = ImageWorkHorse.applyFilter(image, new BlackFilter());
-
-        if (image.getType() != BufferedImage.TYPE_INT_ARGB) { // We can only parse TYPE_INT_ARGB, so if it's not that, we must convert the image to that, so it can be parsed properly.
-            BufferedImage sourceImage = image;
-            image = new BufferedImage(sourceImage.getWidth(), sourceImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
-            Graphics graphics = image.createGraphics();
-            graphics.drawImage(sourceImage, 0, 0, null);
-            graphics.dispose();
-        }
+        image = ImageWorkHorse.applyFilter(image, new BlackFilter()); // This also converts the image to TYPE_INT_ARGB.
 
-        short imageWidth = (short) image.getWidth();
-        short imageHeight = (short) image.getHeight();
-        Utils.verify(imageWidth <= MAX_DIMENSION && imageHeight <= MAX_DIMENSION, "The imported image is too big. Frogger's engine only supports up to %dx%d.", MAX_DIMENSION, MAX_DIMENSION);
+        Utils.verify(isValidSize(image.getWidth(), image.getHeight()), "The imported image is too big. Frogger's engine only supports up to %dx%d.", MAX_DIMENSION, MAX_DIMENSION);
+        for (String warning : getReplacementWarnings(image.getWidth(), image.getHeight()))
+            Utils.makePopUp(warning, AlertType.WARNING);
+
+        setPixels(RasterFilter.getPixels(image), image.getWidth(), image.getHeight()); // The filtered image is new, so its pixels can be used directly.
+    }
 
+    /**
+     * Gets warnings about problems that replacing this image with an image of a given size may cause.
+     * @param imageWidth  The width of the new image.
+     * @param imageHeight The height of the new image.
+     * @return warnings
+     */
+    public List<String> getReplacementWarnings(int imageWidth, int imageHeight) {
+        List<String> warnings = new ArrayList<>();
         if ((imageWidth / getWidthMultiplier()) + getVramX() > MAX_DIMENSION)
-            Utils.makePopUp("This image does not fit horizontally in VRAM. Use the VRAM editor to make it fit.", AlertType.WARNING);
+            warnings.add("This image does not fit horizontally in VRAM. Use the VRAM editor to make it fit.");
 
         if (imageWidth > getFullWidth() || imageHeight > getFullHeight())
-            Utils.makePopUp("The image you have imported is larger than the image it replaced.\nThis may cause problems if it overlaps with another texture. Click on the 'VRAM' option to make sure the texture is ok.", AlertType.WARNING);
+            warnings.add("The image you have imported is larger than the image it replaced.\nThis may cause problems if it overlaps with another texture. Click on the 'VRAM' option to make sure the texture is ok.");
+
+        return warnings;
+    }
 
+    /**
+     * Replace the pixels of this image, without any checks.
+     * @param pixels      The new ARGB pixels, which should already have had the BlackFilter applied. This array is used directly, not copied.
+     * @param imageWidth  The width of the new image.
+     * @param imageHeight The height of the new image.
+     */
+    void setPixels(int[] pixels, int imageWidth, int imageHeight) {
         if (getFullWidth() != imageWidth || getFullHeight() != imageHeight) {
-            this.fullWidth = imageWidth;
-            this.fullHeight = imageHeight;
+            this.fullWidth = (short) imageWidth;
+            this.fullHeight = (short) imageHeight;
             setIngameWidth((short) (imageWidth - 2));
             setIngameHeight((short) (imageHeight - 2));
         }
 
-        // Read image rgba data.
-        int[] array = new int[getFullHeight() * getFullWidth()];
-        image.getRGB(0, 0, getFullWidth(), getFullHeight(), array, 0, getFullWidth());
-
-        //Convert int array into byte array.
-        ByteBuffer buffer = ByteBuffer.allocate(array.length * Constants.INTEGER_SIZE);
-        buffer.asIntBuffer().put(array);
-        byte[] bytes = buffer.array();
-
-        // Convert BGRA -> ABGR, and write the new image bytes.
-        this.imageBytes = bytes; // Override existing image.
-        for (int i = 0; i < bytes.length; i += PC_BYTES_PER_PIXEL) { // Load image bytes.
-            this.imageBytes[i] = (byte) (0xFF - this.imageBytes[i]); // Flip alpha.
-            byte temp = this.imageBytes[i + 1];
-            this.imageBytes[i + 1] = this.imageBytes[i + 3];
-            this.imageBytes[i + 3] = temp;
-        }
-
+        // This overrides the existing image. The old pixels may be shared with other images, so they are replaced rather than changed.
+        this.pixels = PixelStore.getInstance().intern(this, pixels);
+        this.unmodifiedPixels = null;
         invalidateCache();
+        onAreaChange();
+    }
+
+    /**
+     * Set the x position of this image in VRAM.
+     * @param vramX The new x position.
+     */
+    public void setVramX(short vramX) {
+        this.vramX = vramX;
+        onAreaChange();
+    }
+
+    /**
+     * Set the y position of this image in VRAM.
+     * @param vramY The new y position.
+     */
+    public void setVramY(short vramY) {
+        this.vramY = vramY;
+        onAreaChange();
+    }
+
+    /**
+     * Set the clut mode of this image. On the PS1 this changes how much VRAM the image uses.
+     * @param clutMode The new clut mode.
+     */
+    public void setClutMode(ImageClutMode clutMode) {
+        if (clutMode == this.clutMode)
+            return;
+
+        detachFromSource();
+        this.clutMode = clutMode;
+        onAreaChange();
+    }
+
+    /**
+     * Set the full width of this image.
+     * @param fullWidth The new width.
+     */
+    public void setFullWidth(short fullWidth) {
+        if (fullWidth != this.fullWidth)
+            detachFromSource();
+        this.fullWidth = fullWidth;
+    }
+
+    /**
+     * Set the full height of this image.
+     * @param fullHeight The new height.
+     */
+    public void setFullHeight(short fullHeight) {
+        if (fullHeight != this.fullHeight)
+            detachFromSource();
+        this.fullHeight = fullHeight;
+    }
+
+    private synchronized void detachFromSource() {
+        if (this.pixels != null || this.sourceData == null)
+            return;
+
+        // The loaded data is decoded with the current size and clut mode, so it must be decoded before either changes, or it would be read as something else.
+        this.pixels = getPixels();
+        this.unmodifiedPixels = null;
+        this.sourceData = null;
+        this.sourcePalette = null;
+    }
+
+    private void onAreaChange() {
+        if (getParent() != null)
+            getParent().onImageAreaChange(this);
+    }
+
+    /**
+     * Test if an image of a given size can be used by the game.
+     * @param imageWidth  The width of the image.
+     * @param imageHeight The height of the image.
+     * @return isValidSize
+     */
+    public static boolean isValidSize(int imageWidth, int imageHeight) {
+        return imageWidth <= MAX_DIMENSION && imageHeight <= MAX_DIMENSION;
     }
 
     /**
@@ -386,34 +498,22 @@ public class GameImage extends GameObject implements Cloneable, TextureSource {
 
     /**
      * Export this image exactly how it is saved in the database.
+     * The image is backed by the pixel array, which may be shared with other images, so do not draw onto it.
      * @return bufferedImage
      */
-    public BufferedImage toBufferedImage() {
-        if (this.cachedImage != null)
-            return this.cachedImage;
+    public synchronized BufferedImage toBufferedImage() {
+        BufferedImage image = this.cachedImage != null ? this.cachedImage.get() : null;
+        if (image != null)
+            return image;
 
-        int height = getFullHeight();
+        // The image is backed directly by the pixel array, so no pixels are copied or converted.
+        int[] pixels = getPixels();
         int width = getFullWidth();
-
-        byte[] cloneBytes = Arrays.copyOf(getImageBytes(), getImageBytes().length); // We don't want to make changes to the original array.
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-
-        //ABGR -> BGRA
-        for (int temp = 0; temp < cloneBytes.length; temp += PC_BYTES_PER_PIXEL) {
-            byte alpha = cloneBytes[temp];
-            int alphaIndex = temp + PC_BYTES_PER_PIXEL - 1;
-            System.arraycopy(cloneBytes, temp + 1, cloneBytes, temp, alphaIndex - temp);
-            cloneBytes[alphaIndex] = (byte) (0xFF - alpha); // Alpha needs to be flipped.
-        }
-
-        IntBuffer buffer = ByteBuffer.wrap(cloneBytes)
-                .order(ByteOrder.LITTLE_ENDIAN)
-                .asIntBuffer();
-
-        int[] array = new int[buffer.remaining()];
-        buffer.get(array);
-        image.setRGB(0, 0, image.getWidth(), image.getHeight(), array, 0, image.getWidth());
-        return this.cachedImage = image;
+        DataBufferInt buffer = new DataBufferInt(pixels, pixels.length);
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, getFullHeight(), width, ARGB_BIT_MASKS, null);
+        image = new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
+        this.cachedImage = new SoftReference<>(image);
+        return image;
     }
 
     /**
@@ -2,10 +2,9 @@ package net.highwayfrogs.editor.file.vlo;
 
 import lombok.Getter;
 import net.highwayfrogs.editor.file.vlo.ImageWorkHorse.TransparencyFilter;
+import net.highwayfrogs.editor.system.ImageCache;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Contains information about what operations should and should not be applied.
@@ -18,7 +17,10 @@ public class ImageFilterSettings {
     private boolean allowTransparency;
     private boolean allowFlip;
     private boolean allowScrunch;
-    private Map<BufferedImage, BufferedImage> renderCache = new HashMap<>();
+    private final ImageCache<BufferedImage, BufferedImage> renderCache = new ImageCache<>("Filter Cache", RENDER_CACHE_BYTES, ImageCache::getByteSize);
+
+    public static final long RENDER_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final TransparencyFilter TRANSPARENCY_FILTER = new TransparencyFilter();
 
     public ImageFilterSettings(ImageState state) {
         this.state = state;
@@ -106,21 +108,24 @@ public class ImageFilterSettings {
         if (result != null)
             return result;
 
-        BufferedImage image = firstImage;
+        // Every enabled filter is applied in the same pass over the pixels.
+        RasterFilter filter = new RasterFilter();
         if (isExport() && isTrimEdges())
-            image = ImageWorkHorse.trimEdges(gameImage, image);
+            filter.trimEdges(gameImage);
 
         if (isAllowFlip() && !gameImage.testFlag(GameImage.FLAG_HIT_X))
-            image = ImageWorkHorse.flipVertically(image);
+            filter.setFlipVertically(true);
 
         if (isAllowScrunch() && gameImage.getParent().isPsxMode())
-            image = ImageWorkHorse.scaleWidth(image, isImport() ? (double) gameImage.getWidthMultiplier() : (1D / (double) gameImage.getWidthMultiplier()));
+            filter.setWidthScale(isImport() ? (double) gameImage.getWidthMultiplier() : (1D / (double) gameImage.getWidthMultiplier()));
 
         boolean transparencyGoal = isAllowTransparency() && gameImage.testFlag(GameImage.FLAG_BLACK_IS_TRANSPARENT);
         if (transparencyGoal)
-            image = ImageWorkHorse.applyFilter(image, new TransparencyFilter());
+            filter.addPixelFilter(TRANSPARENCY_FILTER);
 
-        this.renderCache.put(firstImage, image);
+        BufferedImage image = filter.isIdentity() ? firstImage : filter.apply(firstImage);
+        if (image != firstImage) // If no filter changed anything, there's nothing worth caching. (The cached image would also keep its weak key alive.)
+            this.renderCache.put(firstImage, image);
         return image;
     }
 
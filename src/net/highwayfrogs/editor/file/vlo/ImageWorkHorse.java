@@ -1,13 +1,11 @@
 package net.highwayfrogs.editor.file.vlo;
 
 import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.vlo.RasterFilter.PixelFilter;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.awt.image.FilteredImageSource;
-import java.awt.image.ImageFilter;
-import java.awt.image.RGBImageFilter;
 
 /**
  * Apply image filters.
@@ -22,15 +20,7 @@ public class ImageWorkHorse {
      * @return trimmedImage
      */
     public static BufferedImage trimEdges(GameImage gameImage, BufferedImage image) {
-        int xTrim = gameImage.getFullWidth() - gameImage.getIngameWidth();
-        int yTrim = gameImage.getFullHeight() - gameImage.getIngameHeight();
-
-        BufferedImage trimImage = new BufferedImage(gameImage.getIngameWidth(), gameImage.getIngameHeight(), image.getType());
-        Graphics2D graphics = trimImage.createGraphics();
-        graphics.drawImage(image, -xTrim / 2, -yTrim / 2, gameImage.getFullWidth(), gameImage.getFullHeight(), null);
-        graphics.dispose();
-
-        return trimImage;
+        return new RasterFilter().trimEdges(gameImage).apply(image);
     }
 
     /**
@@ -44,11 +34,7 @@ public class ImageWorkHorse {
         if (newWidth == image.getWidth())
             return image; // There would be no change.
 
-        BufferedImage scaleImage = new BufferedImage(newWidth, image.getHeight(), image.getType());
-        Graphics2D graphics = scaleImage.createGraphics();
-        graphics.drawImage(image, 0, 0, newWidth, image.getHeight(), null);
-        graphics.dispose();
-        return scaleImage;
+        return new RasterFilter().setWidthScale(scaleFactor).apply(image);
     }
 
     /**
@@ -57,12 +43,7 @@ public class ImageWorkHorse {
      * @return flippedImage
      */
     public static BufferedImage flipVertically(BufferedImage image) {
-        BufferedImage trimImage = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
-        Graphics2D graphics = trimImage.createGraphics();
-        graphics.drawImage(image, 0, image.getHeight(), image.getWidth(), -image.getHeight(), null);
-        graphics.dispose();
-
-        return trimImage;
+        return new RasterFilter().setFlipVertically(true).apply(image);
     }
 
     /**
@@ -71,33 +52,25 @@ public class ImageWorkHorse {
      * @param filter The filter to apply.
      * @return resultImage
      */
-    public static BufferedImage applyFilter(BufferedImage image, ImageFilter filter) {
-        Image write = Toolkit.getDefaultToolkit().createImage(new FilteredImageSource(image.getSource(), filter)); // Make it transparent if marked.
-        BufferedImage newImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
-
-        // Make transparent.
-        Graphics2D graphics = newImage.createGraphics();
-        graphics.drawImage(write, 0, 0, image.getWidth(), image.getHeight(), null); // Draw the image not flipped.
-        graphics.dispose();
-
-        return newImage;
+    public static BufferedImage applyFilter(BufferedImage image, PixelFilter filter) {
+        return new RasterFilter().addPixelFilter(filter).apply(image);
     }
 
     // Black -> Transparency
-    public static class TransparencyFilter extends RGBImageFilter {
+    public static class TransparencyFilter implements PixelFilter {
         @Override
-        public int filterRGB(int x, int y, int rgb) {
-            int colorWOAlpha = rgb & 0xFFFFFF;
-            return colorWOAlpha == 0x000000 ? colorWOAlpha : rgb;
+        public int filterPixel(int argb) {
+            int colorWOAlpha = argb & 0xFFFFFF;
+            return colorWOAlpha == 0x000000 ? colorWOAlpha : argb;
         }
     }
 
     // Transparency -> Black
-    public static class BlackFilter extends RGBImageFilter {
+    public static class BlackFilter implements PixelFilter {
         @Override
-        public int filterRGB(int x, int y, int rgb) {
-            int alpha = rgb >>> (3 * Constants.BITS_PER_BYTE);
-            return alpha == 0 ? 0xFF000000 : rgb;
+        public int filterPixel(int argb) {
+            int alpha = argb >>> (3 * Constants.BITS_PER_BYTE);
+            return alpha == 0 ? 0xFF000000 : argb;
         }
     }
 
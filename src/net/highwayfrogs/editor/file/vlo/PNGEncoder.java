@@ -0,0 +1,97 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import net.highwayfrogs.editor.Constants;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes images as 32-bit RGBA PNGs.
+ * Unlike ImageIO, this reads pixels straight from the image's int array, lets the deflate level be chosen, and reuses a Deflater per thread.
+ * The output is deterministic, so encoding the same image twice will give identical bytes.
+ */
+public class PNGEncoder {
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte COLOR_TYPE_RGBA = 6;
+    private static final byte FILTER_SUB = 1; // Each byte is stored as the difference from the same channel of the pixel to its left.
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(Deflater::new);
+
+    /**
+     * Encode an image as a PNG.
+     * @param image        The image to encode.
+     * @param deflateLevel The deflate level to compress with. (0-9, or Deflater.DEFAULT_COMPRESSION)
+     * @return pngBytes
+     */
+    public static byte[] encode(BufferedImage image, int deflateLevel) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = RasterFilter.getPixels(image);
+
+        try {
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream((width * height) + 64);
+            DataOutputStream output = new DataOutputStream(byteStream);
+            output.write(PNG_SIGNATURE);
+
+            // Write header.
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream(13);
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(width);
+            header.writeInt(height);
+            header.writeByte(Constants.BITS_PER_BYTE); // Bit depth.
+            header.writeByte(COLOR_TYPE_RGBA);
+            header.writeByte(0); // Compression method: Deflate.
+            header.writeByte(0); // Filter method: Adaptive.
+            header.writeByte(0); // Interlace method: None.
+            writeChunk(output, "IHDR", headerBytes.toByteArray());
+
+            // Write pixel data.
+            Deflater deflater = DEFLATERS.get();
+            deflater.reset();
+            deflater.setLevel(deflateLevel);
+
+            ByteArrayOutputStream imageBytes = new ByteArrayOutputStream(width * height);
+            DeflaterOutputStream deflateStream = new DeflaterOutputStream(imageBytes, deflater, 8192);
+            byte[] row = new byte[1 + (width * BYTES_PER_PIXEL)];
+            row[0] = FILTER_SUB;
+            for (int y = 0; y < height; y++) {
+                int lastArgb = 0;
+                for (int x = 0, index = 1, pixel = y * width; x < width; x++, pixel++) {
+                    int argb = pixels[pixel];
+                    row[index++] = (byte) ((argb >> 16) - (lastArgb >> 16)); // Red
+                    row[index++] = (byte) ((argb >> 8) - (lastArgb >> 8)); // Green
+                    row[index++] = (byte) (argb - lastArgb); // Blue
+                    row[index++] = (byte) ((argb >>> 24) - (lastArgb >>> 24)); // Alpha
+                    lastArgb = argb;
+                }
+
+                deflateStream.write(row);
+            }
+
+            deflateStream.finish();
+            writeChunk(output, "IDAT", imageBytes.toByteArray());
+            writeChunk(output, "IEND", new byte[0]);
+            return byteStream.toByteArray();
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to encode PNG.", ex); // Nothing here writes anywhere but memory.
+        }
+    }
+
+    private static void writeChunk(DataOutputStream output, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        output.writeInt(data.length);
+        output.write(typeBytes);
+        output.write(data);
+        output.writeInt((int) crc.getValue());
+    }
+}
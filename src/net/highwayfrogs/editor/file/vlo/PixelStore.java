@@ -0,0 +1,107 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import lombok.Getter;
+import net.highwayfrogs.editor.utils.DataSizeUnit;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * Shares identical pixel data between images.
+ * Many textures are found in more than one VLO (themes, multiplayer copies, low-poly variants, etc), so instead of each copy keeping its own pixels, they all use the same array.
+ * Arrays are found by a hash of their contents, and are held weakly, so they're forgotten once no image uses them.
+ * Pixel arrays from here are shared, so they must never be modified. Images which change get a new array instead. (Copy-on-write)
+ */
+@Getter
+public class PixelStore {
+    private final Map<Long, List<PixelReference>> entries = new HashMap<>();
+    private final Map<Object, PixelReference> ownerReferences = new WeakHashMap<>(); // The array each image is currently using, so an image which decodes its pixels again isn't counted twice.
+    private final ReferenceQueue<int[]> referenceQueue = new ReferenceQueue<>();
+
+    @Getter private static final PixelStore instance = new PixelStore();
+
+    /**
+     * Gets the shared array with the same pixels as the given array.
+     * If there isn't one, the given array becomes the shared array.
+     * @param owner  The image which will use the pixels. Replaces any array the owner used before.
+     * @param pixels The pixels to find.
+     * @return sharedPixels
+     */
+    public int[] intern(Object owner, int[] pixels) {
+        long hash = hash(pixels); // Hashing doesn't touch the store, so other threads don't need to wait for it.
+
+        synchronized (this) {
+            cleanup();
+
+            PixelReference sharedReference = null;
+            List<PixelReference> references = this.entries.computeIfAbsent(hash, key -> new ArrayList<>(1));
+            for (PixelReference reference : references) {
+                int[] sharedPixels = reference.get();
+                if (sharedPixels != null && Arrays.equals(sharedPixels, pixels)) {
+                    sharedReference = reference;
+                    pixels = sharedPixels;
+                    break;
+                }
+            }
+
+            if (sharedReference == null) {
+                sharedReference = new PixelReference(pixels, hash, this.referenceQueue);
+                references.add(sharedReference);
+            }
+
+            this.ownerReferences.put(owner, sharedReference);
+            return pixels;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        // Counted from the images which are alive now, so images which are unloaded or decoded again don't skew the numbers.
+        Set<PixelReference> uniqueReferences = Collections.newSetFromMap(new IdentityHashMap<>());
+        long imageCount = 0;
+        long totalBytes = 0;
+        long uniqueBytes = 0;
+        for (PixelReference reference : this.ownerReferences.values()) {
+            if (reference.get() == null)
+                continue;
+
+            imageCount++;
+            totalBytes += reference.byteSize;
+            if (uniqueReferences.add(reference))
+                uniqueBytes += reference.byteSize;
+        }
+
+        return (imageCount - uniqueReferences.size()) + " duplicate(s) of " + uniqueReferences.size() + " image(s), " + DataSizeUnit.formatSize(totalBytes - uniqueBytes) + " saved";
+    }
+
+    private void cleanup() {
+        // Forget arrays which no image uses anymore.
+        Reference<? extends int[]> reference;
+        while ((reference = this.referenceQueue.poll()) != null) {
+            long hash = ((PixelReference) reference).hash;
+            List<PixelReference> references = this.entries.get(hash);
+            if (references != null && references.remove(reference) && references.isEmpty())
+                this.entries.remove(hash);
+        }
+    }
+
+    private static long hash(int[] pixels) {
+        long hash = 0xCBF29CE484222325L ^ pixels.length; // FNV-1a.
+        for (int pixel : pixels)
+            hash = (hash ^ pixel) * 0x100000001B3L;
+        return hash;
+    }
+
+    private static class PixelReference extends WeakReference<int[]> {
+        private final long hash;
+        private final long byteSize;
+
+        public PixelReference(int[] pixels, long hash, ReferenceQueue<int[]> queue) {
+            super(pixels, queue);
+            this.hash = hash;
+            this.byteSize = (long) pixels.length * Integer.BYTES;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import lombok.Getter;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Applies a chain of image operations directly to ARGB pixels, in a single pass.
+ * Trimming, flipping, and scaling only change which source pixel ends up where, so they're combined into a table of source rows and columns.
+ * Pixel filters are then run on each pixel as it is copied, so no matter how many operations are used, each pixel is only visited once.
+ * Operations are always applied in this order: trim, vertical flip, horizontal scale, pixel filters.
+ */
+@Getter
+public class RasterFilter {
+    private int trimX;
+    private int trimY;
+    private int trimWidth = -1;
+    private int trimHeight = -1;
+    private boolean flipVertically;
+    private double widthScale = 1D;
+    private boolean parallel = true;
+    private final List<PixelFilter> pixelFilters = new ArrayList<>();
+
+    public static final int PARALLEL_PIXEL_THRESHOLD = 256 * 256; // Smaller images finish faster than the work can be split up.
+    private static final int OUT_OF_BOUNDS = -1;
+
+    /**
+     * Only keep an area of the image.
+     * @param x      The x coordinate the area starts at.
+     * @param y      The y coordinate the area starts at.
+     * @param width  The width of the area.
+     * @param height The height of the area.
+     * @return this
+     */
+    public RasterFilter trim(int x, int y, int width, int height) {
+        this.trimX = x;
+        this.trimY = y;
+        this.trimWidth = width;
+        this.trimHeight = height;
+        return this;
+    }
+
+    /**
+     * Trim the padding off of a GameImage.
+     * @param gameImage The image to get trimming data from.
+     * @return this
+     */
+    public RasterFilter trimEdges(GameImage gameImage) {
+        int xTrim = gameImage.getFullWidth() - gameImage.getIngameWidth();
+        int yTrim = gameImage.getFullHeight() - gameImage.getIngameHeight();
+        return trim(xTrim / 2, yTrim / 2, gameImage.getIngameWidth(), gameImage.getIngameHeight());
+    }
+
+    /**
+     * Set if the image should be flipped vertically.
+     * @param flipVertically Whether to flip the image.
+     * @return this
+     */
+    public RasterFilter setFlipVertically(boolean flipVertically) {
+        this.flipVertically = flipVertically;
+        return this;
+    }
+
+    /**
+     * Set the factor the image width is scaled by.
+     * @param widthScale The factor to scale the image horizontally by.
+     * @return this
+     */
+    public RasterFilter setWidthScale(double widthScale) {
+        this.widthScale = widthScale;
+        return this;
+    }
+
+    /**
+     * Set if large images may be filtered on multiple threads.
+     * @param parallel Whether to allow multiple threads.
+     * @return this
+     */
+    public RasterFilter setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Adds a filter which is applied to every pixel.
+     * @param filter The filter to add.
+     * @return this
+     */
+    public RasterFilter addPixelFilter(PixelFilter filter) {
+        this.pixelFilters.add(filter);
+        return this;
+    }
+
+    /**
+     * Test if applying this would not change an image.
+     * @return isIdentity
+     */
+    public boolean isIdentity() {
+        return this.trimWidth < 0 && !this.flipVertically && this.widthScale == 1D && this.pixelFilters.isEmpty();
+    }
+
+    /**
+     * Apply this to an image. The supplied image is not modified.
+     * @param image The image to apply this to.
+     * @return newImage, of type TYPE_INT_ARGB.
+     */
+    public BufferedImage apply(BufferedImage image) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int trimmedWidth = this.trimWidth >= 0 ? this.trimWidth : sourceWidth;
+        int trimmedHeight = this.trimHeight >= 0 ? this.trimHeight : sourceHeight;
+        int newWidth = Math.max(1, (int) (trimmedWidth * this.widthScale));
+
+        BufferedImage newImage = new BufferedImage(newWidth, trimmedHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] newPixels = ((DataBufferInt) newImage.getRaster().getDataBuffer()).getData();
+        apply(getPixels(image), sourceWidth, sourceHeight, newPixels, newWidth, trimmedHeight);
+        return newImage;
+    }
+
+    private void apply(int[] source, int sourceWidth, int sourceHeight, int[] target, int newWidth, int newHeight) {
+        int trimmedWidth = this.trimWidth >= 0 ? this.trimWidth : sourceWidth;
+
+        // Calculate which source column each new column is taken from. Scaling picks the nearest pixel, just like drawing the image scaled would.
+        int[] columns = new int[newWidth];
+        for (int x = 0; x < newWidth; x++) {
+            int sourceX = this.trimX + (int) (((x + .5D) * trimmedWidth) / newWidth);
+            columns[x] = (sourceX >= 0 && sourceX < sourceWidth) ? sourceX : OUT_OF_BOUNDS;
+        }
+
+        PixelFilter[] filters = this.pixelFilters.toArray(new PixelFilter[0]);
+        if (this.parallel && newWidth * newHeight >= PARALLEL_PIXEL_THRESHOLD) {
+            IntStream.range(0, newHeight).parallel().forEach(y -> applyRow(source, sourceWidth, sourceHeight, target, newWidth, newHeight, columns, filters, y));
+        } else {
+            for (int y = 0; y < newHeight; y++)
+                applyRow(source, sourceWidth, sourceHeight, target, newWidth, newHeight, columns, filters, y);
+        }
+    }
+
+    private void applyRow(int[] source, int sourceWidth, int sourceHeight, int[] target, int newWidth, int newHeight, int[] columns, PixelFilter[] filters, int y) {
+        int sourceY = this.trimY + (this.flipVertically ? newHeight - y - 1 : y);
+        int targetIndex = y * newWidth;
+        if (sourceY < 0 || sourceY >= sourceHeight)
+            return; // Pixels outside the source image are left transparent.
+
+        int sourceRow = sourceY * sourceWidth;
+        for (int x = 0; x < newWidth; x++, targetIndex++) {
+            int sourceX = columns[x];
+            if (sourceX == OUT_OF_BOUNDS)
+                continue;
+
+            int argb = source[sourceRow + sourceX];
+            for (PixelFilter filter : filters)
+                argb = filter.filterPixel(argb);
+            target[targetIndex] = argb;
+        }
+    }
+
+    /**
+     * Gets the ARGB pixels of an image. If the image is backed by an ARGB pixel array, that array is returned without copying.
+     * @param image The image to get pixels from.
+     * @return pixels
+     */
+    public static int[] getPixels(BufferedImage image) {
+        Raster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB && raster.getDataBuffer() instanceof DataBufferInt
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0) {
+            int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+            if (pixels.length == image.getWidth() * image.getHeight())
+                return pixels;
+        }
+
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * A filter which changes pixel colors.
+     */
+    public interface PixelFilter {
+        /**
+         * Filter a single pixel.
+         * @param argb The ARGB color of the pixel.
+         * @return filteredArgb
+         */
+        int filterPixel(int argb);
+    }
+}
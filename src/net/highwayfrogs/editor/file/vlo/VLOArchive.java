@@ -1,6 +1,7 @@
 package net.highwayfrogs.editor.file.vlo;
 
 import javafx.scene.Node;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import lombok.Getter;
@@ -12,6 +13,7 @@ import net.highwayfrogs.editor.file.WADFile;
 import net.highwayfrogs.editor.file.WADFile.WADEntry;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
+import net.highwayfrogs.editor.file.vlo.ImageWorkHorse.BlackFilter;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.gui.GUIMain;
 import net.highwayfrogs.editor.gui.MainController;
@@ -24,10 +26,12 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * VLOArchive - Image archive format created by VorgPC/Vorg2.
@@ -39,6 +43,8 @@ import java.util.function.Consumer;
 public class VLOArchive extends GameFile {
     private List<GameImage> images = new ArrayList<>();
     private List<ClutEntry> clutEntries = new ArrayList<>();
+    private transient Map<Short, ClutEntry> clutIdMap = new HashMap<>();
+    private transient VRAMIndex vramIndex;
     private boolean psxMode;
 
     private static final String PC_SIGNATURE = "2GRP";
@@ -118,16 +124,132 @@ public class VLOArchive extends GameFile {
 
     /**
      * Export all images in this VLO archive.
+     * @param directory The directory to export the images to.
+     * @param settings  The settings to export the images with.
      */
     public void exportAllImages(File directory, ImageFilterSettings settings) {
-        try {
-            for (int i = 0; i < getImages().size(); i++) {
-                File output = new File(directory, i + ".png");
-                ImageIO.write(getImages().get(i).toBufferedImage(settings), "png", output);
-                System.out.println("Exported image #" + i + ".");
+        BulkImageExporter exporter = new BulkImageExporter();
+        exportAllImages(directory, settings, exporter);
+        exporter.finish();
+    }
+
+    /**
+     * Queue all images in this VLO archive for export.
+     * @param directory The directory to export the images to.
+     * @param settings  The settings to export the images with.
+     * @param exporter  The exporter to export the images with.
+     */
+    public void exportAllImages(File directory, ImageFilterSettings settings, BulkImageExporter exporter) {
+        for (int i = 0; i < getImages().size(); i++) {
+            GameImage image = getImages().get(i);
+            exporter.exportImage(new File(directory, i + ".png"), () -> image.toBufferedImage(settings));
+        }
+    }
+
+    /**
+     * Replace images in this VLO archive with images from a directory.
+     * Each image file should be named after the local id of the image it replaces, like exportAllImages names them.
+     * @param directory The directory to import images from.
+     * @return importedCount
+     */
+    public int importAllImages(File directory) {
+        Map<GameImage, File> imageFiles = new HashMap<>();
+        for (File file : Utils.listFiles(directory)) {
+            String name = Utils.stripExtension(file.getName());
+            if (!Utils.isInteger(name))
+                continue;
+
+            int id = Integer.parseInt(name);
+            if (id >= 0 && id < getImages().size())
+                imageFiles.put(getImages().get(id), file);
+        }
+
+        return importImages(imageFiles);
+    }
+
+    /**
+     * Replace images in this VLO archive by their texture ids.
+     * @param textureFiles The texture ids of the images to replace, and the files to replace them with.
+     * @return importedCount
+     */
+    public int importImagesByTextureId(Map<Integer, File> textureFiles) {
+        Map<GameImage, File> imageFiles = new HashMap<>();
+        textureFiles.forEach((textureId, file) -> {
+            GameImage image = getImageByTextureId(textureId);
+            if (image == null)
+                throw new RuntimeException("There is no image with texture id " + textureId + " in " + getFileEntry().getDisplayName() + ".");
+            imageFiles.put(image, file);
+        });
+
+        return importImages(imageFiles);
+    }
+
+    /**
+     * Replace many images in this VLO archive at once.
+     * The files are read and converted in parallel, then every image is checked before any image is replaced.
+     * If any image can't be used, an exception is thrown, and nothing is replaced.
+     * @param imageFiles The images to replace, and the files to replace them with.
+     * @return importedCount
+     */
+    public int importImages(Map<GameImage, File> imageFiles) {
+        List<ImageImport> imports = imageFiles.entrySet().parallelStream()
+                .map(entry -> new ImageImport(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
+        // Check everything before changing anything.
+        List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        for (ImageImport imageImport : imports) {
+            String imageName = "Image #" + imageImport.getImage().getLocalImageID() + " (" + imageImport.getFile().getName() + "): ";
+            if (imageImport.getError() != null) {
+                errors.add(imageName + imageImport.getError());
+            } else if (!GameImage.isValidSize(imageImport.getWidth(), imageImport.getHeight())) {
+                errors.add(imageName + "The image is too big. Frogger's engine only supports up to " + GameImage.MAX_DIMENSION + "x" + GameImage.MAX_DIMENSION + ".");
+            } else {
+                for (String warning : imageImport.getImage().getReplacementWarnings(imageImport.getWidth(), imageImport.getHeight()))
+                    warnings.add(imageName + warning);
+            }
+        }
+
+        if (errors.size() > 0)
+            throw new RuntimeException("No images were imported, because " + errors.size() + " image(s) could not be used:" + Constants.NEWLINE + String.join(Constants.NEWLINE, errors));
+
+        for (ImageImport imageImport : imports)
+            imageImport.getImage().setPixels(imageImport.getPixels(), imageImport.getWidth(), imageImport.getHeight());
+
+        if (warnings.size() > 0)
+            Utils.makePopUp(String.join(Constants.NEWLINE, warnings), AlertType.WARNING);
+
+        System.out.println("Imported " + imports.size() + " images.");
+        return imports.size();
+    }
+
+    @Getter
+    private static class ImageImport {
+        private final GameImage image;
+        private final File file;
+        private int[] pixels;
+        private int width;
+        private int height;
+        private String error;
+
+        public ImageImport(GameImage image, File file) {
+            this.image = image;
+            this.file = file;
+
+            try {
+                BufferedImage readImage = ImageIO.read(file);
+                if (readImage == null) {
+                    this.error = "The file is not a supported image format.";
+                    return;
+                }
+
+                this.width = readImage.getWidth();
+                this.height = readImage.getHeight();
+                this.pixels = RasterFilter.getPixels(ImageWorkHorse.applyFilter(readImage, new BlackFilter()));
+            } catch (Exception ex) {
+                this.error = "Failed to read the file. (" + ex.getMessage() + ")";
             }
-        } catch (IOException ex) {
-            ex.printStackTrace();
         }
     }
 
@@ -167,17 +289,65 @@ public class VLOArchive extends GameFile {
         List<Tuple2<String, String>> list = new ArrayList<>();
         list.add(new Tuple2<>("Images", String.valueOf(getImages().size())));
         list.add(new Tuple2<>("PS1 VLO", String.valueOf(isPsxMode())));
+        list.add(new Tuple2<>("Shared Pixels (All VLOs)", PixelStore.getInstance().toString()));
         return list;
     }
 
     /**
      * Get an image that holds a specific vram coordinate.
+     * @param x The vram x coordinate.
+     * @param y The vram y coordinate.
+     * @return image, or null if there is no image there.
      */
     public GameImage getImage(double x, double y) {
-        for (GameImage image : getImages())
-            if (image.contains(x * image.getWidthMultiplier(), y))
-                return image;
-        return null;
+        return getVramIndex().getImage((int) Math.floor(x), (int) Math.floor(y));
+    }
+
+    /**
+     * Automatically lay out every image in VRAM, using as few texture pages as possible.
+     * If the images can't all fit, an exception is thrown and no image is moved.
+     * @return pagesUsed
+     */
+    public int packImages() {
+        return new VRAMPacker(this).pack();
+    }
+
+    /**
+     * Gets the index of which images cover which parts of VRAM. It is created when it's first needed.
+     * @return vramIndex
+     */
+    public VRAMIndex getVramIndex() {
+        if (this.vramIndex == null)
+            this.vramIndex = new VRAMIndex(this);
+        return this.vramIndex;
+    }
+
+    /**
+     * Called when the area an image covers in VRAM has changed.
+     * @param image The image which has changed.
+     */
+    void onImageAreaChange(GameImage image) {
+        if (this.vramIndex != null)
+            this.vramIndex.updateImage(image);
+    }
+
+    /**
+     * Gets the clut with a given clut id.
+     * @param clutId The id of the clut to get.
+     * @return clut
+     */
+    public ClutEntry getClutById(short clutId) {
+        ClutEntry clut = this.clutIdMap.get(clutId);
+        if (clut == null || clut.getClutId() != clutId) { // The cluts have changed since the lookup was made.
+            this.clutIdMap.clear();
+            for (ClutEntry testEntry : getClutEntries())
+                this.clutIdMap.put(testEntry.getClutId(), testEntry);
+            clut = this.clutIdMap.get(clutId);
+        }
+
+        if (clut == null)
+            throw new RuntimeException("Failed to find clut for coordinates [" + ((clutId & 0x3F) << 4) + ", " + (clutId >> 6) + "].");
+        return clut;
     }
 
     /**
@@ -258,12 +428,23 @@ public class VLOArchive extends GameFile {
         if (vramImage == null || (calcWidth != vramImage.getWidth() || calcHeight != vramImage.getHeight()))
             vramImage = new BufferedImage(calcWidth, calcHeight, BufferedImage.TYPE_INT_ARGB);
 
-        // Draw on image.
+        updateVRAMImage(vramImage, new Rectangle(0, 0, vramImage.getWidth(), vramImage.getHeight()));
+        return vramImage;
+    }
+
+    /**
+     * Redraw part of an image made by makeVRAMImage, such as where an image was moved from and to.
+     * Only what is inside the area is drawn, so this is much faster than remaking the whole image.
+     * @param vramImage The image made by makeVRAMImage.
+     * @param area      The area to redraw, in pixels of the VRAM image.
+     */
+    public void updateVRAMImage(BufferedImage vramImage, Rectangle area) {
         Graphics2D graphics = vramImage.createGraphics();
+        graphics.setClip(area);
 
         // Fill background.
         graphics.setColor(Constants.COLOR_TURQUOISE);
-        graphics.fillRect(0, 0, vramImage.getWidth(), vramImage.getHeight());
+        graphics.fillRect(area.x, area.y, area.width, area.height);
 
         final int psxMultiple = (GameImage.PSX_FULL_PAGE_WIDTH / GameImage.PSX_PAGE_WIDTH);
         if (isPsxMode()) {
@@ -274,15 +455,32 @@ public class VLOArchive extends GameFile {
             graphics.fillRect(0, 240, 320 * psxMultiple, 240);
 
             // Draw cluts.
-            for (ClutEntry clutEntry : getClutEntries())
-                graphics.drawImage(clutEntry.makeImage(), null, clutEntry.getClutRect().getX() * psxMultiple, clutEntry.getClutRect().getY());
+            for (ClutEntry clutEntry : getClutEntries()) {
+                int clutX = clutEntry.getClutRect().getX() * psxMultiple;
+                int clutY = clutEntry.getClutRect().getY();
+                if (area.intersects(clutX, clutY, clutEntry.getClutRect().getWidth(), clutEntry.getClutRect().getHeight()))
+                    graphics.drawImage(clutEntry.makeImage(), null, clutX, clutY);
+            }
         }
 
-        // Draw images.
-        for (GameImage image : getImages())
-            graphics.drawImage(image.toBufferedImage(VRAM_EXPORT_NO_SCRUNCH), null, image.getVramX() * (isPsxMode() ? (psxMultiple / image.getWidthMultiplier()) : 1), image.getVramY());
+        // Draw images. Images outside of the area are skipped, so they don't need to be made.
+        for (GameImage image : getImages()) {
+            Rectangle imageArea = getVRAMImageArea(image);
+            if (area.intersects(imageArea))
+                graphics.drawImage(image.toBufferedImage(VRAM_EXPORT_NO_SCRUNCH), null, imageArea.x, imageArea.y);
+        }
 
         graphics.dispose(); // Cleanup.
-        return vramImage;
+    }
+
+    /**
+     * Gets the area an image is drawn to by makeVRAMImage.
+     * @param image The image to get the area of.
+     * @return area
+     */
+    public Rectangle getVRAMImageArea(GameImage image) {
+        int psxMultiple = (GameImage.PSX_FULL_PAGE_WIDTH / GameImage.PSX_PAGE_WIDTH);
+        int x = image.getVramX() * (isPsxMode() ? (psxMultiple / image.getWidthMultiplier()) : 1);
+        return new Rectangle(x, image.getVramY(), image.getFullWidth(), image.getFullHeight());
     }
 }
@@ -0,0 +1,256 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Tracks which parts of VRAM each image in a VLO covers, so finding the image at a position or testing for overlapping images doesn't require testing every image.
+ * Each texture page has a grid which holds how many images cover each spot of VRAM, and which image that is.
+ * When an image is moved or resized, only the spots it covers are updated.
+ * Positions are in VRAM units, so on the PS1 an image's x position and width are divided by its width multiplier.
+ */
+public class VRAMIndex {
+    private final VLOArchive vloArchive;
+    private final PageGrid[] pages = new PageGrid[GameImage.TOTAL_PAGES];
+    private final Map<GameImage, ImageArea> imageAreas = new IdentityHashMap<>();
+    private final List<GameImage> slotImages = new ArrayList<>(); // Grid cells store an index into this list instead of the image.
+    private final List<Integer> freeSlots = new ArrayList<>();
+    @Getter private int overlapCount; // The number of spots covered by more than one image.
+    @Getter private int outOfBoundsCount; // The number of images which are at least partially outside of VRAM.
+
+    private static final short NO_IMAGE = -1;
+    private static final short UNKNOWN_IMAGE = -2;
+
+    public VRAMIndex(VLOArchive vloArchive) {
+        this.vloArchive = vloArchive;
+        for (GameImage image : vloArchive.getImages())
+            updateImage(image);
+    }
+
+    /**
+     * Gets the image at a given VRAM position.
+     * @param x The VRAM x coordinate.
+     * @param y The VRAM y coordinate.
+     * @return image, or null if there is no image there.
+     */
+    public GameImage getImage(int x, int y) {
+        checkImages();
+        PageGrid page = getPage(x, y);
+        if (page == null)
+            return null;
+
+        int index = page.getIndex(x, y);
+        short slot = page.owners[index];
+        if (slot == UNKNOWN_IMAGE) { // The image which was here was moved away, but another image is still here. Find it.
+            for (ImageArea area : this.imageAreas.values()) {
+                if (area.contains(x, y)) {
+                    page.owners[index] = slot = area.slot;
+                    break;
+                }
+            }
+        }
+
+        return slot >= 0 ? this.slotImages.get(slot) : null;
+    }
+
+    /**
+     * Test if any images overlap.
+     * @return hasOverlap
+     */
+    public boolean hasOverlap() {
+        checkImages();
+        return this.overlapCount > 0;
+    }
+
+    /**
+     * Gets the first spot in VRAM where images overlap.
+     * @return overlapPosition, as {page, x, y}, or null if nothing overlaps.
+     */
+    public int[] findOverlap() {
+        if (!hasOverlap())
+            return null;
+
+        for (int i = 0; i < this.pages.length; i++) {
+            PageGrid page = this.pages[i];
+            if (page == null || page.overlapCount == 0)
+                continue;
+
+            for (int j = 0; j < page.counts.length; j++)
+                if (page.counts[j] > 1)
+                    return new int[]{i, page.startX + (j % getPageWidth()), page.startY + (j / getPageWidth())};
+        }
+
+        return null;
+    }
+
+    /**
+     * Update the area covered by an image, after it has been moved, resized, or added.
+     * @param image The image to update.
+     */
+    public void updateImage(GameImage image) {
+        ImageArea oldArea = this.imageAreas.get(image);
+        if (oldArea != null)
+            applyArea(oldArea, -1);
+
+        ImageArea newArea = new ImageArea(image, oldArea != null ? oldArea.slot : allocateSlot(image));
+        this.imageAreas.put(image, newArea);
+        applyArea(newArea, 1);
+    }
+
+    /**
+     * Remove an image from the index.
+     * @param image The image to remove.
+     */
+    public void removeImage(GameImage image) {
+        ImageArea oldArea = this.imageAreas.remove(image);
+        if (oldArea == null)
+            return;
+
+        applyArea(oldArea, -1);
+        this.slotImages.set(oldArea.slot, null);
+        this.freeSlots.add((int) oldArea.slot);
+    }
+
+    private void checkImages() {
+        // Images are added and removed directly from the image list, so if they differ, update the index.
+        if (this.imageAreas.size() == this.vloArchive.getImages().size())
+            return;
+
+        Set<GameImage> images = Collections.newSetFromMap(new IdentityHashMap<>());
+        images.addAll(this.vloArchive.getImages());
+        for (GameImage image : images)
+            if (!this.imageAreas.containsKey(image))
+                updateImage(image);
+
+        for (GameImage image : new ArrayList<>(this.imageAreas.keySet()))
+            if (!images.contains(image))
+                removeImage(image);
+    }
+
+    private short allocateSlot(GameImage image) {
+        if (!this.freeSlots.isEmpty()) {
+            int slot = this.freeSlots.remove(this.freeSlots.size() - 1);
+            this.slotImages.set(slot, image);
+            return (short) slot;
+        }
+
+        this.slotImages.add(image);
+        return (short) (this.slotImages.size() - 1);
+    }
+
+    private void applyArea(ImageArea area, int change) {
+        if (area.outOfBounds)
+            this.outOfBoundsCount += change;
+
+        int minX = Math.max(0, area.x);
+        int minY = Math.max(0, area.y);
+        int maxX = Math.min(getPageWidth() * getXPages(), area.x + area.width);
+        int maxY = Math.min(getPageHeight() * (GameImage.TOTAL_PAGES / getXPages()), area.y + area.height);
+
+        // Apply to each page the image covers separately, since pages are separate grids.
+        for (int pageY = minY; pageY < maxY; pageY = ((pageY / getPageHeight()) + 1) * getPageHeight()) {
+            for (int pageX = minX; pageX < maxX; pageX = ((pageX / getPageWidth()) + 1) * getPageWidth()) {
+                PageGrid page = getOrCreatePage(pageX, pageY);
+                int endX = Math.min(maxX, page.startX + getPageWidth());
+                int endY = Math.min(maxY, page.startY + getPageHeight());
+                for (int y = pageY; y < endY; y++)
+                    for (int x = pageX; x < endX; x++)
+                        page.applyCell(page.getIndex(x, y), area.slot, change);
+            }
+        }
+    }
+
+    private PageGrid getPage(int x, int y) {
+        if (x < 0 || y < 0 || x >= getPageWidth() * getXPages())
+            return null;
+
+        int pageId = ((y / getPageHeight()) * getXPages()) + (x / getPageWidth());
+        return pageId < this.pages.length ? this.pages[pageId] : null;
+    }
+
+    private PageGrid getOrCreatePage(int x, int y) {
+        int pageId = ((y / getPageHeight()) * getXPages()) + (x / getPageWidth());
+        PageGrid page = this.pages[pageId];
+        if (page == null)
+            this.pages[pageId] = page = new PageGrid((x / getPageWidth()) * getPageWidth(), (y / getPageHeight()) * getPageHeight());
+        return page;
+    }
+
+    private int getPageWidth() {
+        return this.vloArchive.isPsxMode() ? GameImage.PSX_PAGE_WIDTH : GameImage.PC_PAGE_WIDTH;
+    }
+
+    private int getPageHeight() {
+        return this.vloArchive.isPsxMode() ? GameImage.PSX_PAGE_HEIGHT : GameImage.PC_PAGE_HEIGHT;
+    }
+
+    private int getXPages() {
+        return this.vloArchive.isPsxMode() ? GameImage.PSX_X_PAGES : 1;
+    }
+
+    private class PageGrid {
+        private final int startX;
+        private final int startY;
+        private final short[] counts = new short[getPageWidth() * getPageHeight()];
+        private final short[] owners = new short[counts.length];
+        private int overlapCount;
+
+        public PageGrid(int startX, int startY) {
+            this.startX = startX;
+            this.startY = startY;
+            Arrays.fill(this.owners, NO_IMAGE);
+        }
+
+        private int getIndex(int x, int y) {
+            return ((y - this.startY) * getPageWidth()) + (x - this.startX);
+        }
+
+        private void applyCell(int index, short slot, int change) {
+            int oldCount = this.counts[index];
+            int newCount = oldCount + change;
+            this.counts[index] = (short) newCount;
+
+            if (oldCount <= 1 && newCount > 1) {
+                this.overlapCount++;
+                VRAMIndex.this.overlapCount++;
+            } else if (oldCount > 1 && newCount <= 1) {
+                this.overlapCount--;
+                VRAMIndex.this.overlapCount--;
+            }
+
+            if (change > 0) {
+                if (oldCount == 0)
+                    this.owners[index] = slot;
+            } else if (newCount == 0) {
+                this.owners[index] = NO_IMAGE;
+            } else if (this.owners[index] == slot) { // Another image still covers this spot. It's found when it's needed, since this only happens where images overlap.
+                this.owners[index] = UNKNOWN_IMAGE;
+            }
+        }
+    }
+
+    private class ImageArea {
+        private final short slot;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+        private final boolean outOfBounds;
+
+        public ImageArea(GameImage image, short slot) {
+            int multiplier = image.getWidthMultiplier();
+            this.slot = slot;
+            this.x = image.getVramX() / multiplier;
+            this.y = image.getVramY();
+            this.width = ((image.getVramX() + image.getFullWidth() + multiplier - 1) / multiplier) - this.x;
+            this.height = image.getFullHeight();
+            this.outOfBounds = this.x < 0 || this.y < 0 || this.x + this.width > getPageWidth() * getXPages()
+                    || this.y + this.height > getPageHeight() * (GameImage.TOTAL_PAGES / getXPages());
+        }
+
+        private boolean contains(int testX, int testY) {
+            return testX >= this.x && testX < this.x + this.width && testY >= this.y && testY < this.y + this.height;
+        }
+    }
+}
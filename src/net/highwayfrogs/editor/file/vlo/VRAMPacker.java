@@ -0,0 +1,188 @@
+package net.highwayfrogs.editor.file.vlo;
+
+import java.util.*;
+
+/**
+ * Automatically lays out the images of a VLO in VRAM, using as few texture pages as possible.
+ * Images are placed largest first, each into the first page it fits in. Within a page, the free space is tracked as a list of maximal free rectangles, and images are placed as far up and left as they'll go.
+ * Images never cross page boundaries, and on the PS1 the frame buffers and cluts are kept clear.
+ * Positions here are in VRAM units, so on the PS1 an image's width is divided by its width multiplier.
+ */
+public class VRAMPacker {
+    private final VLOArchive vloArchive;
+    private final PageBin[] pages = new PageBin[GameImage.TOTAL_PAGES];
+
+    public static final int PSX_FRAME_BUFFER_WIDTH = 320;
+    public static final int PSX_FRAME_BUFFER_HEIGHT = 480; // Two 320x240 buffers, one above the other.
+
+    public VRAMPacker(VLOArchive vloArchive) {
+        this.vloArchive = vloArchive;
+    }
+
+    /**
+     * Lay out every image. If the images don't all fit, an exception is thrown and no image is moved.
+     * @return pagesUsed
+     */
+    public int pack() {
+        List<GameImage> images = new ArrayList<>(this.vloArchive.getImages());
+        images.sort(Comparator.comparingInt((GameImage image) -> image.getFullHeight())
+                .thenComparingInt(image -> getUnitWidth(image)).reversed());
+
+        Map<GameImage, int[]> positions = new IdentityHashMap<>();
+        for (GameImage image : images) {
+            int width = getUnitWidth(image);
+            int height = image.getFullHeight();
+
+            int[] position = null;
+            for (int i = 0; i < this.pages.length && position == null; i++)
+                position = getPage(i).place(width, height);
+
+            if (position == null)
+                throw new RuntimeException("Could not fit image #" + image.getLocalImageID() + " (" + image.getFullWidth() + "x" + height + ") into VRAM. No images were moved.");
+            positions.put(image, position);
+        }
+
+        // Everything fits, so apply the new positions.
+        for (GameImage image : images) {
+            int[] position = positions.get(image);
+            image.setVramX((short) (position[0] * image.getWidthMultiplier()));
+            image.setVramY((short) position[1]);
+        }
+
+        int usedPages = 0;
+        for (PageBin page : this.pages)
+            if (page != null && page.imageCount > 0)
+                usedPages++;
+        return usedPages;
+    }
+
+    private int getUnitWidth(GameImage image) {
+        int multiplier = image.getWidthMultiplier();
+        return (image.getFullWidth() + multiplier - 1) / multiplier;
+    }
+
+    private PageBin getPage(int pageId) {
+        if (this.pages[pageId] != null)
+            return this.pages[pageId];
+
+        boolean psxMode = this.vloArchive.isPsxMode();
+        int xPages = psxMode ? GameImage.PSX_X_PAGES : 1;
+        int width = psxMode ? GameImage.PSX_PAGE_WIDTH : GameImage.PC_PAGE_WIDTH;
+        int height = psxMode ? GameImage.PSX_PAGE_HEIGHT : GameImage.PC_PAGE_HEIGHT;
+        PageBin page = new PageBin((pageId % xPages) * width, (pageId / xPages) * height, width, height);
+
+        if (psxMode) { // Keep the frame buffers and cluts clear.
+            page.reserve(0, 0, PSX_FRAME_BUFFER_WIDTH, PSX_FRAME_BUFFER_HEIGHT);
+            for (ClutEntry clut : this.vloArchive.getClutEntries())
+                page.reserve(clut.getClutRect().getX(), clut.getClutRect().getY(), clut.getClutRect().getWidth(), clut.getClutRect().getHeight());
+        }
+
+        return this.pages[pageId] = page;
+    }
+
+    private static class PageBin {
+        private final int startX;
+        private final int startY;
+        private final int width;
+        private final int height;
+        private final List<FreeRect> freeRects = new ArrayList<>();
+        private int imageCount;
+
+        public PageBin(int startX, int startY, int width, int height) {
+            this.startX = startX;
+            this.startY = startY;
+            this.width = width;
+            this.height = height;
+            this.freeRects.add(new FreeRect(startX, startY, width, height));
+        }
+
+        /**
+         * Find a spot for an area, and mark it as used.
+         * @return position, as {x, y}, or null if it doesn't fit.
+         */
+        private int[] place(int areaWidth, int areaHeight) {
+            FreeRect best = null;
+            for (FreeRect rect : this.freeRects) // Find the highest, then leftmost, spot which is big enough.
+                if (rect.width >= areaWidth && rect.height >= areaHeight
+                        && (best == null || rect.y < best.y || (rect.y == best.y && rect.x < best.x)))
+                    best = rect;
+
+            if (best == null)
+                return null;
+
+            this.imageCount++;
+            reserve(best.x, best.y, areaWidth, areaHeight);
+            return new int[]{best.x, best.y};
+        }
+
+        /**
+         * Mark an area as used. Parts of the area outside of this page are ignored.
+         */
+        private void reserve(int x, int y, int areaWidth, int areaHeight) {
+            FreeRect used = new FreeRect(x, y, areaWidth, areaHeight);
+            if (!used.intersects(new FreeRect(this.startX, this.startY, this.width, this.height)))
+                return;
+
+            // Split every free rectangle which overlaps the used area into the (up to four) maximal rectangles around it.
+            List<FreeRect> newRects = new ArrayList<>();
+            Iterator<FreeRect> iterator = this.freeRects.iterator();
+            while (iterator.hasNext()) {
+                FreeRect rect = iterator.next();
+                if (!rect.intersects(used))
+                    continue;
+
+                iterator.remove();
+                if (used.x > rect.x) // Left.
+                    newRects.add(new FreeRect(rect.x, rect.y, used.x - rect.x, rect.height));
+                if (used.getEndX() < rect.getEndX()) // Right.
+                    newRects.add(new FreeRect(used.getEndX(), rect.y, rect.getEndX() - used.getEndX(), rect.height));
+                if (used.y > rect.y) // Top.
+                    newRects.add(new FreeRect(rect.x, rect.y, rect.width, used.y - rect.y));
+                if (used.getEndY() < rect.getEndY()) // Bottom.
+                    newRects.add(new FreeRect(rect.x, used.getEndY(), rect.width, rect.getEndY() - used.getEndY()));
+            }
+
+            // Remove rectangles which are entirely inside of another one, since they add nothing.
+            this.freeRects.addAll(newRects);
+            for (int i = this.freeRects.size() - 1; i >= 0; i--) {
+                FreeRect rect = this.freeRects.get(i);
+                for (int j = 0; j < this.freeRects.size(); j++) {
+                    if (i != j && this.freeRects.get(j).contains(rect)) {
+                        this.freeRects.remove(i);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class FreeRect {
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        public FreeRect(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        private int getEndX() {
+            return this.x + this.width;
+        }
+
+        private int getEndY() {
+            return this.y + this.height;
+        }
+
+        private boolean intersects(FreeRect other) {
+            return this.x < other.getEndX() && other.x < getEndX() && this.y < other.getEndY() && other.y < getEndY();
+        }
+
+        private boolean contains(FreeRect other) {
+            return other.x >= this.x && other.y >= this.y && other.getEndX() <= getEndX() && other.getEndY() <= getEndY();
+        }
+    }
+}
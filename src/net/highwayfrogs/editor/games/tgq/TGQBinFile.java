@@ -1,5 +1,6 @@
 package net.highwayfrogs.editor.games.tgq;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import net.highwayfrogs.editor.file.GameObject;
 import net.highwayfrogs.editor.file.reader.ArraySource;
@@ -15,6 +16,8 @@ import net.highwayfrogs.editor.utils.Utils;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
 
 /**
  * Parses Frogger TGQ's main game data file.
@@ -23,12 +26,16 @@ import java.util.*;
 @Getter
 public class TGQBinFile extends GameObject {
     private List<String> globalPaths; // It is unknown what these are used for.
-    private List<TGQFile> files = new ArrayList<>();
+    private List<TGQFileEntry> entries = new ArrayList<>(); // The table of contents. Files are only read when they're first needed.
+    private transient AtomicReferenceArray<TGQFile> loadedFiles; // Atomic so files read on other threads are seen fully constructed.
+    private transient volatile List<TGQFile> files; // Null until every file has been read.
+    private transient DataReader reader;
 
     private static final int NAME_SIZE = 0x108;
 
     @Override
     public void load(DataReader reader) {
+        this.reader = reader;
         int unnamedFiles = reader.readInt();
         int namedFiles = reader.readInt();
 
@@ -43,14 +50,17 @@ public class TGQBinFile extends GameObject {
 
         // Read unnamed files.
         for (int i = 0; i < unnamedFiles; i++)
-            files.add(readFile(reader, null, reader.readInt()));
+            this.entries.add(readEntry(reader, null, reader.readInt()));
 
         // Read named files.
         for (int i = 0; i < namedFiles; i++)
-            files.add(readFile(reader, reader.readTerminatedStringOfLength(NAME_SIZE), 0));
+            this.entries.add(readEntry(reader, reader.readTerminatedStringOfLength(NAME_SIZE), 0));
+
+        this.loadedFiles = new AtomicReferenceArray<>(this.entries.size());
+        this.files = null;
     }
 
-    private TGQFile readFile(DataReader reader, String name, int crc) {
+    private TGQFileEntry readEntry(DataReader reader, String name, int crc) {
         int size = reader.readInt();
         int zSize = reader.readInt();
         int offset = reader.readInt();
@@ -58,11 +68,69 @@ public class TGQBinFile extends GameObject {
         if (zero != 0)
             throw new RuntimeException("File field was supposed to be zero! Was: " + zero);
 
-        boolean isCompressed = (zSize != 0); // ZLib compression.
+        return new TGQFileEntry(name, crc, size, zSize, offset);
+    }
 
-        reader.jumpTemp(offset);
-        byte[] fileBytes = isCompressed ? TGQUtils.zlibDecompress(reader.readBytes(zSize), size) : reader.readBytes(size);
-        reader.jumpReturn();
+    /**
+     * Gets every file in the archive, reading any which haven't been read yet.
+     * Files are read in parallel, since each one is decompressed and parsed on its own.
+     * @return files
+     */
+    public List<TGQFile> getFiles() {
+        if (this.files == null) {
+            IntStream.range(0, this.entries.size()).parallel().forEach(this::getFile);
+            List<TGQFile> files = new ArrayList<>(this.loadedFiles.length());
+            for (int i = 0; i < this.loadedFiles.length(); i++)
+                files.add(this.loadedFiles.get(i));
+            this.files = files;
+        }
+
+        return this.files;
+    }
+
+    /**
+     * Gets the file at a given index, reading it if it hasn't been read yet.
+     * @param index The index of the file.
+     * @return file
+     */
+    public TGQFile getFile(int index) {
+        TGQFile file = this.loadedFiles.get(index);
+        if (file != null)
+            return file;
+
+        TGQFileEntry entry = this.entries.get(index);
+        synchronized (entry) { // Only read each file once.
+            file = this.loadedFiles.get(index);
+            if (file == null) {
+                file = readFile(entry, index);
+                this.loadedFiles.set(index, file);
+            }
+
+            return file;
+        }
+    }
+
+    /**
+     * Test if the file at a given index has been read.
+     * @param index The index of the file.
+     * @return isLoaded
+     */
+    public boolean isFileLoaded(int index) {
+        return this.loadedFiles.get(index) != null;
+    }
+
+    private byte[] readRawBytes(TGQFileEntry entry) {
+        synchronized (this.reader) { // The reader is shared, but reading the bytes is quick. The decompression and parsing happen in parallel.
+            this.reader.jumpTemp(entry.getOffset());
+            byte[] rawBytes = this.reader.readBytes(entry.isCompressed() ? entry.getZSize() : entry.getSize());
+            this.reader.jumpReturn();
+            return rawBytes;
+        }
+    }
+
+    private TGQFile readFile(TGQFileEntry entry, int index) {
+        byte[] rawBytes = readRawBytes(entry);
+        byte[] fileBytes = entry.isCompressed() ? TGQUtils.zlibDecompress(rawBytes, entry.getSize()) : rawBytes;
 
         TGQFile readFile;
         if (Utils.testSignature(fileBytes, TGQImageFile.SIGNATURE)) {
@@ -76,62 +144,80 @@ public class TGQBinFile extends GameObject {
         }
 
         // Read file.
-        readFile.init(name, isCompressed, crc);
+        readFile.init(entry.getName(), entry.isCompressed(), entry.getCrc());
 
         try {
             DataReader fileReader = new DataReader(new ArraySource(fileBytes));
             readFile.load(fileReader);
         } catch (Exception ex) {
-            throw new RuntimeException("There was a problem reading " + readFile.getClass().getSimpleName() + " [File " + this.files.size() + "]", ex);
+            throw new RuntimeException("There was a problem reading " + readFile.getClass().getSimpleName() + " [File " + index + "]", ex);
         }
         return readFile;
     }
 
     @Override
     public void save(DataWriter writer) {
-        List<TGQFile> unnamedFiles = new ArrayList<>();
-        List<TGQFile> namedFiles = new ArrayList<>();
-        for (TGQFile file : getFiles())
-            (file.hasName() ? namedFiles : unnamedFiles).add(file);
+        int unnamedFiles = 0;
+        int namedFiles = 0;
+        for (TGQFileEntry entry : getEntries()) {
+            if (entry.hasName()) {
+                namedFiles++;
+            } else {
+                unnamedFiles++;
+            }
+        }
 
         // Start writing file.
-        writer.writeInt(unnamedFiles.size());
-        writer.writeInt(namedFiles.size());
+        writer.writeInt(unnamedFiles);
+        writer.writeInt(namedFiles);
         int nameAddress = writer.writeNullPointer();
 
-        Map<TGQFile, Integer> fileSizeTable = new HashMap<>();
-        Map<TGQFile, Integer> fileZSizeTable = new HashMap<>();
-        Map<TGQFile, Integer> fileOffsetTable = new HashMap<>();
+        int[] fileSizeTable = new int[getEntries().size()];
+        int[] fileZSizeTable = new int[getEntries().size()];
+        int[] fileOffsetTable = new int[getEntries().size()];
 
         // Write file headers:
-        for (TGQFile file : getFiles()) {
-            if (file.hasName()) {
+        for (int i = 0; i < getEntries().size(); i++) {
+            TGQFileEntry entry = getEntries().get(i);
+            if (entry.hasName()) {
                 int endIndex = (writer.getIndex() + NAME_SIZE);
-                writer.writeTerminatorString(file.getRawName());
+                writer.writeTerminatorString(entry.getName());
                 writer.writeTo(endIndex, (byte) 0xCD);
             } else {
-                writer.writeInt(file.getNameHash());
+                writer.writeInt(entry.getCrc());
             }
 
-            fileSizeTable.put(file, writer.getIndex());
+            fileSizeTable[i] = writer.getIndex();
             writer.writeInt(0); // Size.
-            fileZSizeTable.put(file, writer.getIndex());
+            fileZSizeTable[i] = writer.getIndex();
             writer.writeInt(0); // ZSize.
-            fileOffsetTable.put(file, writer.getIndex());
+            fileOffsetTable[i] = writer.getIndex();
             writer.writeInt(0); // Offset.
             writer.writeInt(0); // Zero.
         }
 
         // Write files:
-        for (TGQFile file : getFiles()) {
-            writer.writeAddressTo(fileOffsetTable.get(file));
+        for (int i = 0; i < getEntries().size(); i++) {
+            TGQFileEntry entry = getEntries().get(i);
+            writer.writeAddressTo(fileOffsetTable[i]);
+
+            if (!isFileLoaded(i)) { // The file hasn't been read, so it can't have changed. Copy it as-is, without decompressing it.
+                writer.jumpTemp(fileSizeTable[i]);
+                writer.writeInt(entry.getSize());
+                writer.writeInt(entry.getZSize());
+                writer.jumpReturn();
+                writer.writeBytes(readRawBytes(entry));
+                continue;
+            }
+
+            TGQFile file = getFile(i);
 
             ArrayReceiver receiver = new ArrayReceiver();
             file.save(new DataWriter(receiver));
             byte[] rawBytes = receiver.toArray();
 
             // Write size.
-            writer.jumpTemp(fileSizeTable.get(file));
+            writer.jumpTemp(fileSizeTable[i]);
             writer.writeInt(rawBytes.length);
             writer.jumpReturn();
 
@@ -140,7 +226,7 @@ public class TGQBinFile extends GameObject {
                 rawBytes = TGQUtils.zlibCompress(rawBytes); // Compress data.
 
                 // Write z size.
-                writer.jumpTemp(fileZSizeTable.get(file));
+                writer.jumpTemp(fileZSizeTable[i]);
                 writer.writeInt(rawBytes.length);
                 writer.jumpReturn();
             }
@@ -272,4 +358,33 @@ public class TGQBinFile extends GameObject {
             writer.closeReceiver();
         }
     }
+
+    /**
+     * An entry in the table of contents of the archive.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class TGQFileEntry {
+        private final String name; // Can be null.
+        private final int crc;
+        private final int size;
+        private final int zSize; // Zero if the file is not compressed.
+        private final int offset;
+
+        /**
+         * Tests if this file is compressed with zlib.
+         * @return isCompressed
+         */
+        public boolean isCompressed() {
+            return this.zSize != 0;
+        }
+
+        /**
+         * Tests if this file has a filename assigned.
+         * @return hasName
+         */
+        public boolean hasName() {
+            return this.name != null;
+        }
+    }
 }
@@ -1,13 +1,18 @@
 package net.highwayfrogs.editor.games.tgq;
 
 import lombok.Getter;
+import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.reader.DataReader;
+import net.highwayfrogs.editor.file.vlo.RasterFilter;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 
 /**
  * Frogger - The Great Quest
@@ -50,11 +55,19 @@ public class TGQImageFile extends TGQFile {
         this.unknown8 = reader.readInt();
         this.unknown9 = reader.readInt();
 
-        // Read Image.
+        // Read Image. Rows are stored bottom to top, so they're flipped as they're read. If the data ends early, the rest of the image is left transparent.
         this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        for (int y = 0; y < height; y++)
-            for (int x = 0; x < width; x++)
-                this.image.setRGB(x, height - y - 1, reader.hasMore() ? reader.readInt() : 0);
+        int[] pixels = RasterFilter.getPixels(this.image);
+        int rowCount = Math.min(height, reader.getRemaining() / Constants.INTEGER_SIZE / Math.max(1, width));
+        IntBuffer imageData = ByteBuffer.wrap(reader.readBytes(rowCount * width * Constants.INTEGER_SIZE)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        for (int y = 0; y < rowCount; y++)
+            imageData.get(pixels, (height - y - 1) * width, width);
+
+        if (rowCount < height && reader.hasMore()) { // Part of a row.
+            int partialPixels = reader.getRemaining() / Constants.INTEGER_SIZE;
+            IntBuffer rowData = ByteBuffer.wrap(reader.readBytes(partialPixels * Constants.INTEGER_SIZE)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            rowData.get(pixels, (height - rowCount - 1) * width, partialPixels);
+        }
     }
 
     @Override
@@ -72,10 +85,15 @@ public class TGQImageFile extends TGQFile {
         writer.writeInt(this.unknown8);
         writer.writeInt(this.unknown9);
 
-        // Write image.
-        for (int y = 0; y < this.image.getHeight(); y++)
-            for (int x = 0; x < this.image.getWidth(); x++)
-                this.image.setRGB(x, y, this.image.getRGB(x, this.image.getHeight() - y - 1));
+        // Write image. Rows are stored bottom to top.
+        int width = this.image.getWidth();
+        int height = this.image.getHeight();
+        int[] pixels = RasterFilter.getPixels(this.image);
+        ByteBuffer imageData = ByteBuffer.allocate(width * height * Constants.INTEGER_SIZE).order(ByteOrder.LITTLE_ENDIAN); // Pixels are always little endian, the same as they are read.
+        IntBuffer imageInts = imageData.asIntBuffer();
+        for (int y = height - 1; y >= 0; y--)
+            imageInts.put(pixels, y * width, width);
+        writer.writeBytes(imageData.array());
     }
 
     @Override
@@ -1,8 +1,13 @@
 package net.highwayfrogs.editor.games.tgq;
 
 import lombok.SneakyThrows;
+import net.highwayfrogs.editor.Constants;
+import net.highwayfrogs.editor.file.reader.DataReader;
 
 import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
@@ -11,6 +16,7 @@ import java.util.zip.Inflater;
  * Created by Kneesnap on 8/17/2019.
  */
 public class TGQUtils {
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
 
     /**
      * Compress data with zlib compression.
@@ -40,10 +46,39 @@ public class TGQUtils {
     @SneakyThrows
     public static byte[] zlibDecompress(byte[] data, int resultSize) {
         byte[] result = new byte[resultSize];
-        Inflater inflater = new Inflater();
+        Inflater inflater = INFLATERS.get(); // Making an inflater is slow, and many files are decompressed at once, so each thread reuses one.
+        inflater.reset();
         inflater.setInput(data);
         inflater.inflate(result);
-        inflater.end();
         return result;
     }
+
+    /**
+     * Read many floats at once.
+     * @param reader The reader to read from.
+     * @param amount The number of floats to read.
+     * @return floats
+     */
+    public static float[] readFloats(DataReader reader, int amount) {
+        float[] result = new float[amount];
+        ByteBuffer.wrap(reader.readBytes(amount * Constants.FLOAT_SIZE)).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(result);
+        return result;
+    }
+
+    /**
+     * Write a line of floats in .obj format, such as "v 1.0 2.0 3.0".
+     * @param writer The writer to write to.
+     * @param prefix The line type.
+     * @param data   The array holding the floats.
+     * @param start  The index of the first float to write.
+     * @param amount The number of floats to write.
+     */
+    public static void writeObjLine(PrintWriter writer, String prefix, float[] data, int start, int amount) {
+        writer.write(prefix);
+        for (int i = start; i < start + amount; i++) {
+            writer.write(' ');
+            writer.write(Float.toString(data[i]));
+        }
+        writer.write(Constants.NEWLINE);
+    }
 }
@@ -2,24 +2,26 @@ package net.highwayfrogs.editor.games.tgq;
 
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.reader.DataReader;
-import net.highwayfrogs.editor.system.Tuple2;
-import net.highwayfrogs.editor.system.Tuple3;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Handles TGQ .VTX files
  * Created by Kneesnap on 8/24/2019.
  */
 public class TGQVertexFile extends TGQFile {
-    private List<Tuple3<Float, Float, Float>> vertices = new ArrayList<>();
-    private List<Tuple2<Float, Float>> normals = new ArrayList<>();
+    private int vertexCount;
+    private float[] vertices = new float[0]; // Packed, VERTEX_STRIDE floats per vertex.
+    private float[] normals = new float[0]; // Packed, NORMAL_STRIDE floats per vertex.
 
     public static final String SIGNATURE = "6YTV";
+    public static final int VERTEX_STRIDE = 3;
+    public static final int NORMAL_STRIDE = 2;
+    private static final int VERTEX_SIZE = 68; // In bytes.
+    private static final int FLOATS_PER_VERTEX = VERTEX_SIZE / Constants.FLOAT_SIZE;
+    private static final int NORMAL_OFFSET = 12; // In floats.
 
     public TGQVertexFile(TGQBinFile mainArchive) {
         super(mainArchive);
@@ -36,14 +38,19 @@ public class TGQVertexFile extends TGQFile {
 
         try {
             //System.out.println("Reading from: " + Utils.toHexString(reader.getSize() - (68 * vertexCount)));
-            reader.jumpTemp(reader.getSize() - (68 * vertexCount));
+            reader.jumpTemp(reader.getSize() - (VERTEX_SIZE * vertexCount));
+            float[] vertexData = TGQUtils.readFloats(reader, vertexCount * FLOATS_PER_VERTEX);
+            float[] newVertices = new float[vertexCount * VERTEX_STRIDE];
+            float[] newNormals = new float[vertexCount * NORMAL_STRIDE];
             for (int i = 0; i < vertexCount; i++) {
-                this.vertices.add(new Tuple3<>(reader.readFloat(), reader.readFloat(), reader.readFloat()));
-                reader.skipBytes(36);
-                this.normals.add(new Tuple2<>(reader.readFloat(), reader.readFloat()));
-                reader.skipBytes(12);
+                System.arraycopy(vertexData, i * FLOATS_PER_VERTEX, newVertices, i * VERTEX_STRIDE, VERTEX_STRIDE);
+                System.arraycopy(vertexData, (i * FLOATS_PER_VERTEX) + NORMAL_OFFSET, newNormals, i * NORMAL_STRIDE, NORMAL_STRIDE);
             }
 
+            this.vertexCount = vertexCount;
+            this.vertices = newVertices;
+            this.normals = newNormals;
+
             //System.out.println("Left: " + reader.getRemaining());
         } catch (Exception ex) { //TODO: Lmao, actually parse the file.
             //System.out.println("Failure!");
@@ -63,11 +70,11 @@ public class TGQVertexFile extends TGQFile {
         PrintWriter writer = new PrintWriter(outputFile);
 
         writer.write("# Exported by FrogLord" + Constants.NEWLINE);
-        for (Tuple3<Float, Float, Float> vertex : this.vertices)
-            writer.write("v " + vertex.getA() + " " + vertex.getB() + " " + vertex.getC() + Constants.NEWLINE);
+        for (int i = 0; i < this.vertexCount; i++)
+            TGQUtils.writeObjLine(writer, "v", this.vertices, i * VERTEX_STRIDE, VERTEX_STRIDE);
 
-        for (Tuple2<Float, Float> normal : this.normals)
-            writer.write("vt " + normal.getA() + " " + normal.getB() + Constants.NEWLINE);
+        for (int i = 0; i < this.vertexCount; i++)
+            TGQUtils.writeObjLine(writer, "vt", this.normals, i * NORMAL_STRIDE, NORMAL_STRIDE);
 
         writer.close();
     }
@@ -5,8 +5,7 @@ import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.reader.DataReader;
 import net.highwayfrogs.editor.file.writer.DataWriter;
 import net.highwayfrogs.editor.games.tgq.TGQTOCFile;
-import net.highwayfrogs.editor.system.Tuple2;
-import net.highwayfrogs.editor.system.Tuple3;
+import net.highwayfrogs.editor.games.tgq.TGQUtils;
 import net.highwayfrogs.editor.utils.Utils;
 
 import java.io.File;
@@ -46,11 +45,13 @@ public class OTTChunk extends TOCChunk {
             reader.skipBytes(0x10); //TODO
 
             OTTMesh newMesh = new OTTMesh(count);
-            for (int j = 0; j < count * 3; j++) {
-                newMesh.getPositions().add(new Tuple3<>(reader.readFloat(), reader.readFloat(), reader.readFloat()));
-                newMesh.getNormals().add(new Tuple3<>(reader.readFloat(), reader.readFloat(), reader.readFloat()));
-                reader.skipInt(); //TODO: ?
-                newMesh.getTexCoords().add(new Tuple2<>(reader.readFloat(), reader.readFloat()));
+            float[] vertexData = TGQUtils.readFloats(reader, newMesh.getVertexCount() * OTTMesh.FLOATS_PER_VERTEX);
+            for (int j = 0; j < newMesh.getVertexCount(); j++) {
+                int offset = j * OTTMesh.FLOATS_PER_VERTEX;
+                System.arraycopy(vertexData, offset, newMesh.getPositions(), j * OTTMesh.POSITION_STRIDE, OTTMesh.POSITION_STRIDE);
+                System.arraycopy(vertexData, offset + 3, newMesh.getNormals(), j * OTTMesh.NORMAL_STRIDE, OTTMesh.NORMAL_STRIDE);
+                // The float at offset + 6 is unknown. TODO: ?
+                System.arraycopy(vertexData, offset + 7, newMesh.getTexCoords(), j * OTTMesh.TEX_COORD_STRIDE, OTTMesh.TEX_COORD_STRIDE);
             }
 
             getMeshes().add(newMesh);
@@ -76,18 +77,18 @@ public class OTTChunk extends TOCChunk {
             writer.write("g" + Constants.NEWLINE);
 
             // Vertices.
-            for (Tuple3<Float, Float, Float> vertex : mesh.getPositions())
-                writer.write("v " + vertex.getA() + " " + vertex.getB() + " " + vertex.getC() + Constants.NEWLINE);
+            for (int j = 0; j < mesh.getVertexCount(); j++)
+                TGQUtils.writeObjLine(writer, "v", mesh.getPositions(), j * OTTMesh.POSITION_STRIDE, OTTMesh.POSITION_STRIDE);
             writer.write(Constants.NEWLINE);
 
             // Tex Coords.
-            for (Tuple2<Float, Float> texCoord : mesh.getTexCoords())
-                writer.write("vt " + texCoord.getA() + " " + texCoord.getB() + Constants.NEWLINE);
+            for (int j = 0; j < mesh.getVertexCount(); j++)
+                TGQUtils.writeObjLine(writer, "vt", mesh.getTexCoords(), j * OTTMesh.TEX_COORD_STRIDE, OTTMesh.TEX_COORD_STRIDE);
             writer.write(Constants.NEWLINE);
 
             // Normals.
-            for (Tuple3<Float, Float, Float> normal : mesh.getNormals())
-                writer.write("vn " + normal.getA() + " " + normal.getB() + " " + normal.getC() + Constants.NEWLINE);
+            for (int j = 0; j < mesh.getVertexCount(); j++)
+                TGQUtils.writeObjLine(writer, "vn", mesh.getNormals(), j * OTTMesh.NORMAL_STRIDE, OTTMesh.NORMAL_STRIDE);
             writer.write(Constants.NEWLINE);
 
             // Faces.
@@ -117,14 +118,30 @@ public class OTTChunk extends TOCChunk {
     }
 
     @Getter
-    public class OTTMesh {
-        private List<Tuple3<Float, Float, Float>> positions = new ArrayList<>();
-        private List<Tuple3<Float, Float, Float>> normals = new ArrayList<>();
-        private List<Tuple2<Float, Float>> texCoords = new ArrayList<>();
-        private int count;
+    public static class OTTMesh {
+        private final float[] positions; // Packed, POSITION_STRIDE floats per vertex.
+        private final float[] normals; // Packed, NORMAL_STRIDE floats per vertex.
+        private final float[] texCoords; // Packed, TEX_COORD_STRIDE floats per vertex.
+        private final int count; // The number of triangles.
+
+        public static final int POSITION_STRIDE = 3;
+        public static final int NORMAL_STRIDE = 3;
+        public static final int TEX_COORD_STRIDE = 2;
+        public static final int FLOATS_PER_VERTEX = 9; // Position, normal, unknown, tex coord.
 
         public OTTMesh(int count) {
             this.count = count;
+            this.positions = new float[getVertexCount() * POSITION_STRIDE];
+            this.normals = new float[getVertexCount() * NORMAL_STRIDE];
+            this.texCoords = new float[getVertexCount() * TEX_COORD_STRIDE];
+        }
+
+        /**
+         * Gets the number of vertices in this mesh. Each triangle has its own three vertices.
+         * @return vertexCount
+         */
+        public int getVertexCount() {
+            return this.count * 3;
         }
     }
 }
@@ -19,6 +19,7 @@ import net.highwayfrogs.editor.file.MWIFile.FileEntry;
 import net.highwayfrogs.editor.file.config.FroggerEXEInfo;
 import net.highwayfrogs.editor.file.map.MAPFile;
 import net.highwayfrogs.editor.file.sound.VHFile;
+import net.highwayfrogs.editor.file.vlo.BulkImageExporter;
 import net.highwayfrogs.editor.file.vlo.GameImage;
 import net.highwayfrogs.editor.file.vlo.ImageFilterSettings;
 import net.highwayfrogs.editor.file.vlo.ImageFilterSettings.ImageState;
@@ -252,11 +253,14 @@ public class MainController implements Initializable {
 
         ImageFilterSettings exportSettings = new ImageFilterSettings(ImageState.EXPORT).setTrimEdges(false).setAllowTransparency(true);
         List<VLOArchive> allVlos = getMwdFile().getAllFiles(VLOArchive.class);
+        BulkImageExporter exporter = new BulkImageExporter();
         for (VLOArchive saveVLO : allVlos) {
             File vloFolder = new File(targetFolder, Utils.stripExtension(saveVLO.getFileEntry().getDisplayName()));
             Utils.makeDirectory(vloFolder);
-            saveVLO.exportAllImages(vloFolder, exportSettings);
+            saveVLO.exportAllImages(vloFolder, exportSettings, exporter);
         }
+
+        exporter.finish();
     }
 
     /**
@@ -210,7 +210,7 @@ public class MOFController extends EditorController<MOFHolder> {
         mofScene.setOnScroll(evt -> camera.setTranslateZ(camera.getTranslateZ() + (evt.getDeltaY() * .25)));
 
         mofScene.setOnMouseClicked(evt -> {
-            MOFPolygon clickedPoly = getMofMesh().getFacePolyMap().get(evt.getPickResult().getIntersectedFace());
+            MOFPolygon clickedPoly = getMofMesh().getPolygon(evt.getPickResult().getIntersectedFace());
             if (clickedPoly == null)
                 return;
 
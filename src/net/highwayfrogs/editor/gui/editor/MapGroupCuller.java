@@ -0,0 +1,207 @@
+package net.highwayfrogs.editor.gui.editor;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.collections.ListChangeListener;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.SubScene;
+import javafx.scene.shape.MeshView;
+import javafx.scene.transform.Transform;
+import lombok.Getter;
+import net.highwayfrogs.editor.file.map.MAPFile;
+import net.highwayfrogs.editor.file.map.view.MapChunkMesh;
+import net.highwayfrogs.editor.file.map.view.MapMesh;
+import net.highwayfrogs.editor.file.map.view.TextureMap;
+import net.highwayfrogs.editor.file.map.view.TextureMap.ShaderMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows the chunks of the map in their own views, and hides the chunks which the camera can't see, so large maps don't draw every polygon every frame.
+ * A chunk is hidden if it's entirely outside of the camera's view. Hiding a chunk only hides its view, so no mesh data changes.
+ * In low detail mode, the chunks of the map's low-poly (_WIN95) version are shown instead. They can't be clicked, since edits are made to the normal map.
+ */
+@Getter
+public class MapGroupCuller {
+    private final MapUIController controller;
+    private final CameraFPS camera;
+    private final SubScene subScene;
+    private final Group chunkGroup = new Group(); // Holds a view for each chunk, and is drawn before the map mesh, so anything drawn over polygons is on top.
+    private final List<MeshView> chunkViews = new ArrayList<>();
+    private final List<MeshView> lowDetailViews = new ArrayList<>();
+    private MAPFile lowDetailMap; // The low-poly version of the map, or null if there isn't one.
+    private MapMesh lowDetailMesh;
+    private boolean enabled = true;
+    private boolean lowDetail;
+    private boolean updateQueued;
+    private int hiddenChunkCount;
+
+    public MapGroupCuller(MapUIController controller, CameraFPS camera, SubScene subScene) {
+        this.controller = controller;
+        this.camera = camera;
+        this.subScene = subScene;
+    }
+
+    /**
+     * Show the chunks, and start culling them whenever the camera moves.
+     */
+    public void start() {
+        this.lowDetailMap = this.controller.getMapMesh().getMap().getLowPolyMap();
+        this.chunkGroup.visibleProperty().bind(this.controller.getMeshView().visibleProperty());
+        this.controller.getMapMesh().getChunks().addListener((ListChangeListener<MapChunkMesh>) change -> updateChunkViews());
+        updateChunkViews();
+
+        InvalidationListener listener = observable -> queueUpdate();
+        PerspectiveCamera fxCamera = this.camera.getCamera();
+        fxCamera.localToSceneTransformProperty().addListener(listener);
+        fxCamera.farClipProperty().addListener(listener);
+        fxCamera.nearClipProperty().addListener(listener);
+        fxCamera.fieldOfViewProperty().addListener(listener);
+        this.subScene.widthProperty().addListener(listener);
+        this.subScene.heightProperty().addListener(listener);
+        update();
+    }
+
+    /**
+     * Sets whether or not chunks should be culled.
+     * @param enabled The new enabled state.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        update();
+    }
+
+    /**
+     * Sets whether or not the low-poly version of the map is shown instead of the map.
+     * @param lowDetail The new low detail state.
+     */
+    public void setLowDetail(boolean lowDetail) {
+        if (lowDetail && this.lowDetailMap == null)
+            throw new RuntimeException("There is no low-poly version of " + this.controller.getMapMesh().getMap().getFileEntry().getDisplayName() + ".");
+
+        this.lowDetail = lowDetail;
+        if (lowDetail) {
+            // The low-poly map is only loaded once it's shown. It's loaded again if the shading has changed since.
+            ShaderMode mode = this.controller.getMapMesh().getTextureMap().getMode();
+            if (this.lowDetailMesh == null || this.lowDetailMesh.getTextureMap().getMode() != mode) {
+                TextureMap textureMap = TextureMap.newTextureMap(this.lowDetailMap, mode);
+                this.lowDetailMesh = new MapMesh(this.lowDetailMap, textureMap);
+                unbindViews(this.lowDetailViews);
+                for (MapChunkMesh chunk : this.lowDetailMesh.getChunks()) {
+                    MeshView view = makeChunkView(chunk);
+                    view.setMaterial(textureMap.getDiffuseMaterial());
+                    view.setMouseTransparent(true);
+                    this.lowDetailViews.add(view);
+                }
+            }
+        }
+
+        showChunkViews();
+    }
+
+    private void updateChunkViews() {
+        unbindViews(this.chunkViews);
+        for (MapChunkMesh chunk : this.controller.getMapMesh().getChunks()) {
+            MeshView view = makeChunkView(chunk);
+            view.materialProperty().bind(this.controller.getMeshView().materialProperty());
+            chunk.getPoints().addListener((array, sizeChanged, from, to) -> queueUpdate()); // The chunk has been rebuilt, or its vertices have moved.
+            this.chunkViews.add(view);
+        }
+
+        showChunkViews();
+    }
+
+    private MeshView makeChunkView(MapChunkMesh chunk) {
+        // Each chunk is drawn the same way as the map mesh.
+        MeshView meshView = this.controller.getMeshView();
+        MeshView view = new MeshView(chunk);
+        view.drawModeProperty().bind(meshView.drawModeProperty());
+        view.cullFaceProperty().bind(meshView.cullFaceProperty());
+        return view;
+    }
+
+    private static void unbindViews(List<MeshView> views) {
+        for (MeshView view : views) {
+            view.materialProperty().unbind();
+            view.drawModeProperty().unbind();
+            view.cullFaceProperty().unbind();
+        }
+
+        views.clear();
+    }
+
+    private List<MeshView> getShownViews() {
+        return this.lowDetail ? this.lowDetailViews : this.chunkViews;
+    }
+
+    private void showChunkViews() {
+        this.chunkGroup.getChildren().setAll(getShownViews());
+        queueUpdate();
+    }
+
+    private void queueUpdate() {
+        if (this.updateQueued)
+            return;
+
+        // The camera moves several properties at once, so the chunks are only updated once all of them have changed.
+        this.updateQueued = true;
+        Platform.runLater(this::update);
+    }
+
+    /**
+     * Update which chunks are shown.
+     */
+    public void update() {
+        this.updateQueued = false;
+        PerspectiveCamera fxCamera = this.camera.getCamera();
+        Transform transform = fxCamera.getLocalToSceneTransform(); // This also allows invalidation to fire again.
+
+        // Calculate the angles of the sides of the view.
+        double aspectRatio = this.subScene.getHeight() > 0 ? this.subScene.getWidth() / this.subScene.getHeight() : 1;
+        double tanFov = Math.tan(Math.toRadians(fxCamera.getFieldOfView() / 2));
+        double tanX = fxCamera.isVerticalFieldOfView() ? tanFov * aspectRatio : tanFov;
+        double tanY = fxCamera.isVerticalFieldOfView() ? tanFov : tanFov / aspectRatio;
+        double cosX = 1 / Math.sqrt(1 + (tanX * tanX));
+        double sinX = tanX * cosX;
+        double cosY = 1 / Math.sqrt(1 + (tanY * tanY));
+        double sinY = tanY * cosY;
+
+        double nearClip = fxCamera.getNearClip();
+        double farClip = fxCamera.getFarClip();
+
+        this.hiddenChunkCount = 0;
+        for (MeshView view : getShownViews()) {
+            MapChunkMesh chunk = (MapChunkMesh) view.getMesh();
+            if (chunk.isEmpty()) {
+                view.setVisible(false);
+                continue;
+            }
+
+            boolean visible = true;
+            if (isEnabled() && chunk.isCullable()) {
+                float[] bounds = chunk.getBounds();
+                double minX = bounds[0], minY = bounds[1], minZ = bounds[2];
+                double maxX = bounds[3], maxY = bounds[4], maxZ = bounds[5];
+
+                // Test the chunk's bounding sphere against the view, in camera space. (x = right, y = down, z = forward)
+                double centerX = ((minX + maxX) / 2) - transform.getTx();
+                double centerY = ((minY + maxY) / 2) - transform.getTy();
+                double centerZ = ((minZ + maxZ) / 2) - transform.getTz();
+                double radius = Math.sqrt(((maxX - minX) * (maxX - minX)) + ((maxY - minY) * (maxY - minY)) + ((maxZ - minZ) * (maxZ - minZ))) / 2;
+                double camX = (centerX * transform.getMxx()) + (centerY * transform.getMyx()) + (centerZ * transform.getMzx());
+                double camY = (centerX * transform.getMxy()) + (centerY * transform.getMyy()) + (centerZ * transform.getMzy());
+                double camZ = (centerX * transform.getMxz()) + (centerY * transform.getMyz()) + (centerZ * transform.getMzz());
+
+                visible = camZ + radius >= nearClip && camZ - radius <= farClip
+                        && (Math.abs(camX) * cosX) - (camZ * sinX) <= radius
+                        && (Math.abs(camY) * cosY) - (camZ * sinY) <= radius;
+            }
+
+            view.setVisible(visible);
+            if (!visible)
+                this.hiddenChunkCount++;
+        }
+    }
+}
@@ -129,6 +129,7 @@ public class MapUIController implements Initializable {
     private CameraFPS cameraFPS = new CameraFPS();
     private MapMesh mapMesh;
     private RenderManager renderManager = new RenderManager();
+    private MapGroupCuller groupCuller;
     private Group root3D;
     private Scene mapScene;
     private MeshView meshView;
@@ -164,6 +165,11 @@ public class MapUIController implements Initializable {
         subScene3D.setFill(Color.BLACK);
         subScene3D.setCamera(cameraFPS.getCamera());
 
+        // The polygons are drawn by the chunk views, which can be hidden when the camera can't see them. The map mesh only draws what's drawn over polygons, so it isn't picked.
+        this.groupCuller = new MapGroupCuller(this, cameraFPS, subScene3D);
+        this.root3D.getChildren().add(0, this.groupCuller.getChunkGroup());
+        meshView.setMouseTransparent(true);
+
         // Ensure that the render manager has access to the root node
         this.renderManager.setRenderRoot(this.root3D);
 
@@ -207,6 +213,7 @@ public class MapUIController implements Initializable {
         cameraFPS.setCameraLookAt(gridX, baseY, gridZ); // Set the camera to look at the start position, too.
 
         setupBindings(controller, subScene3D, meshView); // Setup UI.
+        this.groupCuller.start();
     }
 
     /**
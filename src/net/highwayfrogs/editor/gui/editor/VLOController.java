@@ -4,6 +4,7 @@ import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
@@ -155,28 +156,18 @@ public class VLOController extends EditorController<VLOArchive> {
     }
 
     @FXML
-    @SneakyThrows
     private void importAllImages(ActionEvent event) {
         File selectedFolder = Utils.promptChooseDirectory("Select the directory to import images from.", true);
         if (selectedFolder == null)
             return; // Cancelled.
 
         updateFilter();
-        int importedFiles = 0;
-        for (File file : Utils.listFiles(selectedFolder)) {
-            String name = Utils.stripExtension(file.getName());
-            if (!Utils.isInteger(name))
-                continue;
-
-            int id = Integer.parseInt(name);
-            if (id >= 0 && id < getFile().getImages().size()) {
-                getFile().getImages().get(id).replaceImage(ImageIO.read(file));
-                importedFiles++;
-            }
-
+        try {
+            getFile().importAllImages(selectedFolder);
+        } catch (RuntimeException ex) {
+            Utils.makePopUp(ex.getMessage(), AlertType.ERROR);
         }
 
-        System.out.println("Imported " + importedFiles + " images.");
         updateDisplay();
     }
 
@@ -2,13 +2,16 @@ package net.highwayfrogs.editor.gui.editor;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.ScrollEvent;
@@ -20,6 +23,7 @@ import lombok.SneakyThrows;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.file.vlo.GameImage;
 import net.highwayfrogs.editor.file.vlo.VLOArchive;
+import net.highwayfrogs.editor.file.vlo.VRAMIndex;
 import net.highwayfrogs.editor.system.AbstractStringConverter;
 import net.highwayfrogs.editor.system.Tuple2;
 import net.highwayfrogs.editor.utils.Utils;
@@ -28,6 +32,7 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.net.URL;
 import java.util.*;
+import java.util.List;
 import java.util.Map.Entry;
 
 /**
@@ -51,8 +56,12 @@ public class VRAMPageController implements Initializable {
     private BufferedImage[] splitImages;
     private HashSet<Short> changedPages = new HashSet<>(); // A set of pages which need updating.
     private ImageView[] splitImageViews = new ImageView[GameImage.TOTAL_PAGES]; // A set of pages which need updating.
+    private WritableImage[] splitFXImages = new WritableImage[splitImageViews.length];
     private HBox[] splitHBoxes = new HBox[splitImageViews.length];
-    private boolean[][] overlapGrid; // Used to test if textures overlap.
+    private WritableImage selectedPageImage;
+    private int shownPage = -1;
+    private List<Rectangle> dirtyAreas = new ArrayList<>(); // Areas of the full image which need redrawing.
+    private boolean fullRedraw; // Whether the whole full image needs redrawing.
     private int selectedPage;
 
     // Configuration:
@@ -71,7 +80,6 @@ public class VRAMPageController implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Choose visibility of UI based on
-        this.overlapGrid = new boolean[isPsxMode() ? GameImage.PSX_FULL_PAGE_WIDTH : GameImage.PC_PAGE_WIDTH][isPsxMode() ? GameImage.PSX_PAGE_HEIGHT : GameImage.PC_PAGE_HEIGHT];
         setupImages();
 
         if (isPsxMode()) {
@@ -212,6 +220,7 @@ public class VRAMPageController implements Initializable {
 
         this.changedPages.add(this.selectedImage.getMultiplierPage()); // Mark the source page for updating.
         this.changedPages.add(this.selectedImage.getEndPage()); // Make sure if the image is split among two texture pages they both get updated.
+        this.dirtyAreas.add(vloArchive.getVRAMImageArea(this.selectedImage)); // Where the image was needs redrawing.
         saveOriginalPosition();
 
         this.selectedImage.setVramX(finalX);
@@ -224,16 +233,32 @@ public class VRAMPageController implements Initializable {
 
         this.changedPages.add(this.selectedImage.getMultiplierPage()); // Mark the destination page for updating.
         this.changedPages.add(this.selectedImage.getEndPage()); // Make sure if the image is split among two texture pages they both get updated.
+        this.dirtyAreas.add(vloArchive.getVRAMImageArea(this.selectedImage)); // Where the image is now needs redrawing.
         updateAll();
     }
 
     private void updateImage() {
-        this.fullImage = vloArchive.makeVRAMImage(this.fullImage); // Update main image. (Before updating pages.)
+        // Update main image. (Before updating pages.) Only the areas which have changed are redrawn.
+        if (this.fullRedraw) {
+            this.fullImage = vloArchive.makeVRAMImage(this.fullImage);
+            this.fullRedraw = false;
+        } else {
+            for (Rectangle area : this.dirtyAreas)
+                vloArchive.updateVRAMImage(this.fullImage, area);
+        }
+        this.dirtyAreas.clear();
+
+        boolean updateShownPage = (this.shownPage != this.selectedPage) || this.changedPages.contains((short) this.selectedPage);
         for (Short updatePage : this.changedPages) // Update changed pages.
             updateSplitImage(updatePage);
         this.changedPages.clear();
 
-        this.imageView.setImage(Utils.toFXImage(this.splitImages[this.selectedPage], false));
+        if (updateShownPage) { // The displayed image is updated in-place.
+            this.selectedPageImage = SwingFXUtils.toFXImage(this.splitImages[this.selectedPage], this.selectedPageImage);
+            this.shownPage = this.selectedPage;
+        }
+
+        this.imageView.setImage(this.selectedPageImage);
         this.imageView.setPreserveRatio(false);
         this.imageView.setFitWidth(256);
         this.imageView.setFitHeight(256);
@@ -271,7 +296,8 @@ public class VRAMPageController implements Initializable {
 
         if (isPsxMode()) { // Update displayed image.
             ImageView updateView = this.splitImageViews[splitIndex];
-            updateView.setImage(Utils.toFXImage(image, false));
+            this.splitFXImages[splitIndex] = SwingFXUtils.toFXImage(image, this.splitFXImages[splitIndex]); // Update in-place, so only this page is re-uploaded.
+            updateView.setImage(this.splitFXImages[splitIndex]);
             updateView.setFitWidth(32);
             updateView.setFitHeight(128);
         }
@@ -315,42 +341,13 @@ public class VRAMPageController implements Initializable {
 
 
         // Overlap Test:
-        // I couldn't find an algorithm on google which could efficiently find if any boxes overlapped in an arbitrary list of boxes. Literally everything was in regards to testing if two boxes overlap. So, I made my own. I'm sure there's a more efficient way of doing this though.
-        // Actually, something called an R-Tree may be a good data structure for this. Unfortunately, it's rather complicated.
-        // https://stackoverflow.com/questions/13910287/data-structure-to-hold-list-of-rectangles
         if (!multiPageTest) { // If the previous test passes, skip this test, it will error.
-            loopEnd:
-            for (int i = 0; i < this.splitImages.length; i++) { // Test all of the texture pages.
-                // Clear grid.
-                for (int y = 0; y < overlapGrid.length; y++)
-                    Arrays.fill(overlapGrid[y], false);
-
-                for (GameImage image : vloArchive.getImages()) {
-                    if (image.getMultiplierPage() != i)
-                        continue; // If an image's texture page is not the page we're currently looking for overlaps on, we should skip the image.
-
-                    int baseX = (image.getVramX() % (vloArchive.isPsxMode() ? GameImage.PSX_PAGE_WIDTH * image.getWidthMultiplier() : GameImage.PC_PAGE_WIDTH));
-                    int baseY = (image.getVramY() % (vloArchive.isPsxMode() ? GameImage.PSX_PAGE_HEIGHT : GameImage.PC_PAGE_HEIGHT));
-                    for (int y = 0; y < image.getFullHeight(); y++) {
-                        for (int x = 0; x < image.getFullWidth(); x++) {
-                            int gridX = baseX + x;
-                            int gridY = baseY + y;
-
-                            if (gridY < 0 || gridY >= overlapGrid.length || gridX < 0 || gridX >= overlapGrid[gridY].length) {
-                                warning.append("Bounds Error: [").append(gridX).append(", ").append(gridY).append("]").append(Constants.NEWLINE);
-                                break loopEnd;
-                            }
-
-                            //System.out.println("X: "+ (baseX + x) + ", Y: " + (baseY + y) + ", " + overlapGrid[baseY + y][baseX + x]);
-                            if (overlapGrid[gridY][gridX]) {
-                                warning.append("WARNING: Texture overlap on page ").append(image.getMultiplierPage()).append(" (").append(gridX).append(" ").append(gridY).append(").").append(Constants.NEWLINE);
-                                break loopEnd;
-                            }
-
-                            overlapGrid[gridY][gridX] = true;
-                        }
-                    }
-                }
+            VRAMIndex vramIndex = vloArchive.getVramIndex();
+            int[] overlap = vramIndex.findOverlap();
+            if (vramIndex.getOutOfBoundsCount() > 0) {
+                warning.append("Bounds Error: ").append(vramIndex.getOutOfBoundsCount()).append(" texture(s) are outside of VRAM.").append(Constants.NEWLINE);
+            } else if (overlap != null) {
+                warning.append("WARNING: Texture overlap on page ").append(overlap[0]).append(" (").append(overlap[1]).append(" ").append(overlap[2]).append(").").append(Constants.NEWLINE);
             }
         }
 
@@ -383,6 +380,35 @@ public class VRAMPageController implements Initializable {
         this.stage.close();
     }
 
+    @FXML
+    private void autoLayout(ActionEvent evt) {
+        GameImage oldSelectedImage = this.selectedImage;
+        for (GameImage image : vloArchive.getImages()) { // Save original state, in case everything is cancelled.
+            this.selectedImage = image;
+            saveOriginalPosition();
+        }
+        this.selectedImage = oldSelectedImage;
+
+        try {
+            int pagesUsed = vloArchive.packImages();
+            System.out.println("Laid out " + vloArchive.getImages().size() + " images across " + pagesUsed + " texture page(s).");
+        } catch (RuntimeException ex) {
+            Utils.makePopUp(ex.getMessage(), AlertType.WARNING);
+            return;
+        }
+
+        for (short i = 0; i < this.splitImages.length; i++) // Every page may have changed.
+            this.changedPages.add(i);
+        this.fullRedraw = true;
+
+        if (this.selectedImage != null) {
+            xField.setText(String.valueOf(this.selectedImage.getVramX()));
+            yField.setText(String.valueOf(this.selectedImage.getVramY()));
+        }
+
+        updateAll();
+    }
+
     @FXML
     private void confirmChanges(ActionEvent evt) {
         controller.updateDisplay();
@@ -13,6 +13,8 @@ import net.highwayfrogs.editor.file.WADFile.WADEntry;
 import net.highwayfrogs.editor.file.config.FroggerEXEInfo;
 import net.highwayfrogs.editor.file.config.exe.PickupData;
 import net.highwayfrogs.editor.file.config.exe.general.FormEntry;
+import net.highwayfrogs.editor.file.map.MAPPolygonTree;
+import net.highwayfrogs.editor.file.map.MAPPolygonTree.RayHit;
 import net.highwayfrogs.editor.file.map.entity.Entity;
 import net.highwayfrogs.editor.file.map.entity.Entity.EntityFlag;
 import net.highwayfrogs.editor.file.map.entity.FlyScoreType;
@@ -128,6 +130,9 @@ public class EntityManager extends MapManager {
         for (EntityFlag flag : EntityFlag.values())
             entityEditor.addCheckBox(Utils.capitalize(flag.name()), entity.testFlag(flag), newState -> entity.setFlag(flag, newState));
 
+        if (entity.getMatrixInfo() != null)
+            entityEditor.addButton("Place On Ground", () -> placeOnGround(entity));
+
         // Populate Entity Data.
         if (entity.getEntityData() != null) {
             this.entityEditor.addSeparator(25);
@@ -152,6 +157,27 @@ public class EntityManager extends MapManager {
         getController().getEntityPane().setExpanded(true);
     }
 
+    private void placeOnGround(Entity entity) {
+        int[] position = entity.getMatrixInfo().getTransform();
+        float x = Utils.fixedPointIntToFloat4Bit(position[0]);
+        float y = Utils.fixedPointIntToFloat4Bit(position[1]);
+        float z = Utils.fixedPointIntToFloat4Bit(position[2]);
+
+        // Use whichever polygon is closest straight above or below the entity.
+        MAPPolygonTree tree = getMap().getPolygonTree();
+        RayHit below = tree.raycast(x, y, z, 0, 1, 0, Float.POSITIVE_INFINITY);
+        RayHit above = tree.raycast(x, y, z, 0, -1, 0, Float.POSITIVE_INFINITY);
+        RayHit ground = (below == null || (above != null && above.getDistance() < below.getDistance())) ? above : below;
+        if (ground == null) {
+            Utils.makePopUp("There is no ground above or below this entity.", AlertType.INFORMATION);
+            return;
+        }
+
+        position[1] = Utils.floatToFixedPointInt4Bit(ground.getY());
+        showEntityInfo(entity);
+        updateEntities();
+    }
+
     private void addNewEntity(FormEntry entry) {
         Entity newEntity = new Entity(getMap(), entry);
 
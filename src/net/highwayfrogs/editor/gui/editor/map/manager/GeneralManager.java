@@ -78,6 +78,7 @@ public class GeneralManager extends MapManager {
                 .setConverter(new AbstractStringConverter<>(StartRotation::getArrow));
 
         generalEditor.addShortField("Level Timer", map.getLevelTimer(), map::setLevelTimer, null);
+        generalEditor.addLabel("Shaded Textures", getMesh().getTextureMap().getShadedTextureCache().toString());
 
         IVector gridOrigin = new IVector(map.getWorldX(map.getStartXTile(), true), -map.getGridStack(map.getStartXTile(), map.getStartZTile()).getHeight(), map.getWorldZ(map.getStartZTile(), true));
         generalEditor.addFloatVector("Camera Source", map.getCameraSourceOffset(), null, getController(), gridOrigin.defaultBits(), gridOrigin, null);
@@ -106,6 +107,9 @@ public class GeneralManager extends MapManager {
         }, null);
         generalEditor.addCheckBox("Show Group Bounds", isShowGroupBounds(), this::setShowGroupBounds);
         generalEditor.addCheckBox("Show Collision Grid", isShowCollisionGrid(), this::setShowCollisionGrid);
+        generalEditor.addCheckBox("Hide Unseen Groups", getController().getGroupCuller().isEnabled(), getController().getGroupCuller()::setEnabled);
+        if (getController().getGroupCuller().getLowDetailMap() != null)
+            generalEditor.addCheckBox("Low Detail (Win95 Map)", getController().getGroupCuller().isLowDetail(), getController().getGroupCuller()::setLowDetail);
     }
 
     /**
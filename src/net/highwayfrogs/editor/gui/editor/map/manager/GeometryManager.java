@@ -2,14 +2,17 @@ package net.highwayfrogs.editor.gui.editor.map.manager;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
+import javafx.scene.input.PickResult;
 import javafx.scene.shape.MeshView;
 import lombok.Getter;
 import lombok.Setter;
 import net.highwayfrogs.editor.file.map.poly.polygon.MAPPolygon;
+import net.highwayfrogs.editor.file.map.view.MapChunkMesh;
 import net.highwayfrogs.editor.file.map.view.MapMesh;
 import net.highwayfrogs.editor.file.map.view.TextureMap.ShaderMode;
 import net.highwayfrogs.editor.gui.GUIEditorGrid;
@@ -53,6 +56,8 @@ public class GeometryManager extends MapManager {
             getMesh().getTextureMap().setMode(newValue);
             getController().getEntityManager().setShaderMode(newValue);
             refreshView();
+            if (getController().getGroupCuller().isLowDetail())
+                getController().getGroupCuller().setLowDetail(true); // Reload the low-poly map with the new shading.
         });
 
         Scene mapScene = getController().getMapScene();
@@ -69,11 +74,11 @@ public class GeometryManager extends MapManager {
 
         mapScene.setOnMouseMoved(evt -> {
             if (!isPolygonSelected() && this.hoverView == null)
-                setCursorPolygon(getMesh().getFacePolyMap().get(evt.getPickResult().getIntersectedFace()));
+                setCursorPolygon(getPickedPolygon(evt.getPickResult()));
         });
 
         mapScene.setOnMouseClicked(evt -> {
-            MAPPolygon clickedPoly = getMesh().getFacePolyMap().get(evt.getPickResult().getIntersectedFace());
+            MAPPolygon clickedPoly = getPickedPolygon(evt.getPickResult());
 
             if (this.hoverView == null && getSelectedPolygon() != null && (getSelectedPolygon() == clickedPoly)) {
                 if (isPolygonSelected()) {
@@ -165,6 +170,14 @@ public class GeometryManager extends MapManager {
         }
     }
 
+    private static MAPPolygon getPickedPolygon(PickResult result) {
+        Node node = result.getIntersectedNode();
+        if (!(node instanceof MeshView) || !(((MeshView) node).getMesh() instanceof MapChunkMesh))
+            return null;
+
+        return ((MapChunkMesh) ((MeshView) node).getMesh()).getPolygon(result.getIntersectedFace());
+    }
+
     /**
      * Prompts the user for a polygon.
      * @param handler  The handler to accept a prompt with.
@@ -237,12 +250,23 @@ public class GeometryManager extends MapManager {
         cursorData = getMesh().getManager().addMesh();
     }
 
+    /**
+     * Show changes made to a single polygon's texture, uvs, or colors.
+     * If the change can't be applied to just that polygon, the whole view is refreshed.
+     * @param poly The polygon which changed.
+     */
+    public void updatePolygon(MAPPolygon poly) {
+        if (!getMesh().updatePolygon(poly))
+            refreshView();
+    }
+
     /**
      * Refresh map data.
      */
     public void refreshView() {
         hideCursorPolygon();
         getController().getMapMesh().getTextureMap().updateMap(getMap(), null);
+        getMap().markPolygonsChanged();
         getMesh().updateData();
         renderCursor(getSelectedPolygon());
     }
@@ -36,6 +36,7 @@ public class LightManager extends MapManager {
 
         this.mainLight = new AmbientLight(Color.WHITE);
         this.mainLight.getScope().add(getController().getMeshView());
+        this.mainLight.getScope().add(getController().getGroupCuller().getChunkGroup());
     }
 
     @Override
@@ -1,6 +1,5 @@
 package net.highwayfrogs.editor.gui.mesh;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
@@ -8,8 +7,17 @@ import lombok.Getter;
  * Created by Kneesnap on 1/21/2019.
  */
 @Getter
-@AllArgsConstructor
 public class MeshData {
     private final int faceCount;
     private final int texCoordCount;
+    int faceStart; // Where this data's faces are in the mesh. Changes when the mesh manager compacts its data.
+    int texCoordStart; // Where this data's texture coordinates are in the mesh.
+    boolean removed;
+    MeshManager manager;
+    int generation;
+
+    public MeshData(int faceCount, int texCoordCount) {
+        this.faceCount = faceCount;
+        this.texCoordCount = texCoordCount;
+    }
 }
@@ -3,19 +3,26 @@ package net.highwayfrogs.editor.gui.mesh;
 import javafx.collections.ObservableFloatArray;
 import javafx.collections.ObservableIntegerArray;
 import lombok.Getter;
-import net.highwayfrogs.editor.utils.Utils;
 import net.highwayfrogs.editor.file.map.view.FrogMesh;
+import net.highwayfrogs.editor.utils.Utils;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Manages mesh data.
+ * Manages mesh data, which is drawn on top of a mesh, after its polygons.
+ * Each piece of mesh data keeps the spot it was added at. Removing data from the end of the mesh shrinks the mesh, but removing data from anywhere else just hides its faces, so nothing after it needs to move.
+ * Once more hidden faces than shown ones have built up, the shown data is moved together to reclaim the space.
  * Created by Kneesnap on 1/21/2019.
  */
 @Getter
 public class MeshManager {
     private FrogMesh mesh;
-    private LinkedList<MeshData> meshData = new LinkedList<>();
+    private List<MeshData> meshData = new ArrayList<>(); // Includes removed data which still takes up space.
+    private int removedFaceCount; // The number of face elements which belong to removed mesh data.
+    private int generation; // Increased when all data is cleared, so data from before can be recognized.
+
+    private static final int[] EMPTY_FACES = new int[1024];
 
     public MeshManager(FrogMesh mesh) {
         this.mesh = mesh;
@@ -26,64 +33,124 @@ public class MeshManager {
      * @param data The data to remove.
      */
     public void removeMesh(MeshData data) {
-        int removeFaceIndex = getFaceIndex(data);
-        int removeTexIndex = getTexIndex(data);
-        Utils.verify(meshData.remove(data), "Failed to remove MeshData.");
+        Utils.verify(!data.removed && data.manager == this && data.generation == this.generation, "Failed to remove MeshData.");
+        data.removed = true;
 
         ObservableIntegerArray faces = getMesh().getFaces();
-        int newFaceSize = faces.size() - data.getFaceCount();
-
-        int textureIdDecrease = (data.getTexCoordCount() / getMesh().getTexCoordElementSize());
-        for (int i = removeFaceIndex; i < newFaceSize; i++) {
-            int value = faces.get(i + data.getFaceCount());
-            if ((i - removeFaceIndex) % 2 > 0) // If it's a texture entry, since we just removed some texture entries, we need to decrease the texture ids in the faces.
-                value -= textureIdDecrease;
-
-            faces.set(i, value);
+        if (data.faceStart + data.getFaceCount() == faces.size() && data.texCoordStart + data.getTexCoordCount() == getMesh().getTexCoords().size()) {
+            // It's at the end, so the mesh can just shrink. Any removed data right before it goes too.
+            while (!getMeshData().isEmpty() && getMeshData().get(getMeshData().size() - 1).removed) {
+                MeshData lastData = getMeshData().remove(getMeshData().size() - 1);
+                if (lastData != data)
+                    this.removedFaceCount -= lastData.getFaceCount();
+                faces.resize(lastData.faceStart);
+                getMesh().getTexCoords().resize(lastData.texCoordStart);
+            }
+            return;
         }
-        faces.resize(newFaceSize);
 
-        ObservableFloatArray coords = getMesh().getTexCoords();
-        int newTexSize = coords.size() - data.getTexCoordCount();
-        for (int i = removeTexIndex; i < newTexSize; i++)
-            coords.set(i, coords.get(i + data.getTexCoordCount()));
-        coords.resize(newTexSize);
+        hideFaces(faces, data.faceStart, data.getFaceCount());
+        this.removedFaceCount += data.getFaceCount();
+
+        if (this.removedFaceCount > faces.size() - getMesh().getFaceCount() - this.removedFaceCount)
+            compact();
     }
 
     /**
      * Record recent changes as mesh changes..
      */
     public MeshData addMesh() {
-        MeshData lastData = getMeshData().isEmpty() ? null : getMeshData().getLast();
+        MeshData lastData = getMeshData().isEmpty() ? null : getMeshData().get(getMeshData().size() - 1);
 
-        int texIndex = lastData != null ? (getTexIndex(lastData) + lastData.getTexCoordCount()) : getMesh().getTextureCount();
-        int faceIndex = lastData != null ? (getFaceIndex(lastData) + lastData.getFaceCount()) : getMesh().getFaceCount();
+        int texIndex = lastData != null ? (lastData.texCoordStart + lastData.getTexCoordCount()) : getMesh().getTextureCount();
+        int faceIndex = lastData != null ? (lastData.faceStart + lastData.getFaceCount()) : getMesh().getFaceCount();
         MeshData newData = new MeshData(getMesh().getFaces().size() - faceIndex, getMesh().getTexCoords().size() - texIndex);
-        getMeshData().addLast(newData);
+        newData.faceStart = faceIndex;
+        newData.texCoordStart = texIndex;
+        newData.manager = this;
+        newData.generation = this.generation;
+        getMeshData().add(newData);
         return newData;
     }
 
-    private int getFaceIndex(MeshData data) {
-        int faceIndex = getMesh().getFaceCount();
+    /**
+     * Forget all mesh data. This is used when the mesh is rebuilt.
+     */
+    public void clear() {
+        getMeshData().clear();
+        this.removedFaceCount = 0;
+        this.generation++;
+    }
 
-        for (MeshData tempData : getMeshData()) {
-            if (tempData == data)
-                return faceIndex;
-            faceIndex += tempData.getFaceCount();
+    /**
+     * Move all of the mesh data which hasn't been removed together, getting rid of the space used by removed data.
+     */
+    public void compact() {
+        ObservableIntegerArray faces = getMesh().getFaces();
+        ObservableFloatArray texCoords = getMesh().getTexCoords();
+        int baseFace = getMesh().getFaceCount();
+        int baseTexCoord = getMesh().getTextureCount();
+
+        int[] oldFaces = faces.toArray(baseFace, null, faces.size() - baseFace);
+        float[] oldTexCoords = texCoords.toArray(baseTexCoord, null, texCoords.size() - baseTexCoord);
+        int[] newFaces = new int[oldFaces.length - this.removedFaceCount];
+        float[] newTexCoords = new float[oldTexCoords.length];
+
+        // Anything which has been drawn, but not added yet, is kept after the data.
+        MeshData lastData = getMeshData().isEmpty() ? null : getMeshData().get(getMeshData().size() - 1);
+        int pendingFaceStart = lastData != null ? lastData.faceStart + lastData.getFaceCount() - baseFace : 0;
+        int pendingTexCoordStart = lastData != null ? lastData.texCoordStart + lastData.getTexCoordCount() - baseTexCoord : 0;
+
+        int faceIndex = 0;
+        int texCoordIndex = 0;
+        List<MeshData> keptData = new ArrayList<>(getMeshData().size());
+        for (MeshData data : getMeshData()) {
+            if (data.removed)
+                continue;
+
+            int texIdDecrease = ((data.texCoordStart - baseTexCoord) - texCoordIndex) / getMesh().getTexCoordElementSize();
+            copyFaces(oldFaces, data.faceStart - baseFace, newFaces, faceIndex, data.getFaceCount(), texIdDecrease);
+            System.arraycopy(oldTexCoords, data.texCoordStart - baseTexCoord, newTexCoords, texCoordIndex, data.getTexCoordCount());
+            data.faceStart = baseFace + faceIndex;
+            data.texCoordStart = baseTexCoord + texCoordIndex;
+            faceIndex += data.getFaceCount();
+            texCoordIndex += data.getTexCoordCount();
+            keptData.add(data);
         }
 
-        throw new RuntimeException("MeshData is not registered in manager!");
+        int pendingFaces = oldFaces.length - pendingFaceStart;
+        int pendingTexCoords = oldTexCoords.length - pendingTexCoordStart;
+        copyFaces(oldFaces, pendingFaceStart, newFaces, faceIndex, pendingFaces, (pendingTexCoordStart - texCoordIndex) / getMesh().getTexCoordElementSize());
+        System.arraycopy(oldTexCoords, pendingTexCoordStart, newTexCoords, texCoordIndex, pendingTexCoords);
+        faceIndex += pendingFaces;
+        texCoordIndex += pendingTexCoords;
+
+        faces.set(baseFace, newFaces, 0, faceIndex);
+        faces.resize(baseFace + faceIndex);
+        texCoords.set(baseTexCoord, newTexCoords, 0, texCoordIndex);
+        texCoords.resize(baseTexCoord + texCoordIndex);
+
+        this.meshData = keptData;
+        this.removedFaceCount = 0;
     }
 
-    private int getTexIndex(MeshData data) {
-        int texIndex = getMesh().getTextureCount();
+    /**
+     * Hide faces without moving any other faces, by making every vertex the same, so the triangles have no area.
+     * @param faces  The face array to hide faces in.
+     * @param start  The index of the first face element to hide.
+     * @param length The number of face elements to hide.
+     */
+    public static void hideFaces(ObservableIntegerArray faces, int start, int length) {
+        for (int i = 0; i < length; i += EMPTY_FACES.length)
+            faces.set(start + i, EMPTY_FACES, 0, Math.min(EMPTY_FACES.length, length - i));
+    }
 
-        for (MeshData tempData : getMeshData()) {
-            if (tempData == data)
-                return texIndex;
-            texIndex += tempData.getTexCoordCount();
+    private static void copyFaces(int[] source, int sourceIndex, int[] dest, int destIndex, int length, int texIdDecrease) {
+        for (int i = 0; i < length; i++) {
+            int value = source[sourceIndex + i];
+            if (i % 2 > 0) // If it's a texture entry, since texture entries have moved, we need to change the texture ids in the faces.
+                value -= texIdDecrease;
+            dest[destIndex + i] = value;
         }
-
-        throw new RuntimeException("MeshData is not registered in manager!");
     }
 }
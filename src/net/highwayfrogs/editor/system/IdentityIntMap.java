@@ -0,0 +1,124 @@
+package net.highwayfrogs.editor.system;
+
+import java.util.Arrays;
+
+/**
+ * A replacement for IdentityHashMap<K, Integer> which avoids auto-boxing and doesn't allocate an entry per key.
+ * Keys are compared by identity. Clearing keeps the arrays, so it can be refilled without allocating.
+ */
+public class IdentityIntMap<K> {
+    private Object[] keys;
+    private int[] values;
+    private int size;
+
+    private static final int MIN_CAPACITY = 16; // Must be a power of two.
+
+    public IdentityIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IdentityIntMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the value of a key.
+     * @param key          The key to get the value of.
+     * @param defaultValue The value to return if the key isn't in the map.
+     * @return value
+     */
+    public int get(K key, int defaultValue) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(key) & mask; this.keys[i] != null; i = (i + 1) & mask)
+            if (this.keys[i] == key)
+                return this.values[i];
+        return defaultValue;
+    }
+
+    /**
+     * Test if a key is in the map.
+     * @param key The key to test.
+     * @return containsKey
+     */
+    public boolean containsKey(K key) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(key) & mask; this.keys[i] != null; i = (i + 1) & mask)
+            if (this.keys[i] == key)
+                return true;
+        return false;
+    }
+
+    /**
+     * Set the value of a key.
+     * @param key   The key to set. Cannot be null.
+     * @param value The value to set.
+     */
+    public void put(K key, int value) {
+        if (key == null)
+            throw new NullPointerException("IdentityIntMap does not support null keys.");
+
+        if ((this.size + 1) * 2 > this.keys.length)
+            resize(this.keys.length * 2);
+
+        int mask = this.keys.length - 1;
+        int i = hash(key) & mask;
+        while (this.keys[i] != null && this.keys[i] != key)
+            i = (i + 1) & mask;
+
+        if (this.keys[i] == null) {
+            this.keys[i] = key;
+            this.size++;
+        }
+
+        this.values[i] = value;
+    }
+
+    /**
+     * Remove every key from the map.
+     */
+    public void clear() {
+        if (this.size == 0)
+            return;
+
+        Arrays.fill(this.keys, null);
+        this.size = 0;
+    }
+
+    private void resize(int newCapacity) {
+        Object[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new Object[newCapacity];
+        this.values = new int[newCapacity];
+
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null)
+                continue;
+
+            int index = hash(oldKeys[i]) & mask;
+            while (this.keys[index] != null)
+                index = (index + 1) & mask;
+
+            this.keys[index] = oldKeys[i];
+            this.values[index] = oldValues[i];
+        }
+    }
+
+    private static int hash(Object key) {
+        int hash = System.identityHashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,255 @@
+package net.highwayfrogs.editor.system;
+
+import javafx.scene.image.Image;
+import lombok.Getter;
+import net.highwayfrogs.editor.utils.DataSizeUnit;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A least-recently-used cache of images, limited by how much memory the cached images use.
+ * Keys are held weakly and compared by identity, so entries are dropped once whatever they were made from is no longer in use.
+ * Entries may also expire after not being used for a while. Since entries are kept in access order, expired entries are always at the front, so expiring them is O(1) per entry.
+ */
+@Getter
+public class ImageCache<K, V> {
+    private final String name;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<WeakKey<K>, CacheEntry<V>> entries = new LinkedHashMap<>(16, .75F, true);
+    private final ReferenceQueue<K> referenceQueue = new ReferenceQueue<>();
+    private long maxBytes;
+    private long expireMillis;
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public static final long NO_EXPIRY = 0;
+
+    public ImageCache(String name, long maxBytes, ToLongFunction<V> weigher) {
+        this(name, maxBytes, NO_EXPIRY, weigher);
+    }
+
+    public ImageCache(String name, long maxBytes, long expireMillis, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.expireMillis = expireMillis;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Gets the cached value for a key.
+     * @param key The key to get the value for.
+     * @return cachedValue, or null if there is none.
+     */
+    public synchronized V get(K key) {
+        cleanup();
+        CacheEntry<V> entry = this.entries.get(new WeakKey<>(key, null));
+        if (entry == null) {
+            this.misses++;
+            return null;
+        }
+
+        this.hits++;
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.value;
+    }
+
+    /**
+     * Gets the cached value for a key, creating it if it is not cached.
+     * @param key         The key to get the value for.
+     * @param valueMaker  Creates the value if it is not cached.
+     * @return value
+     */
+    public synchronized V computeIfAbsent(K key, Function<K, V> valueMaker) {
+        V value = get(key);
+        if (value == null) {
+            value = valueMaker.apply(key);
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    /**
+     * Puts a value into the cache.
+     * @param key   The key to store the value under.
+     * @param value The value to store.
+     */
+    public synchronized void put(K key, V value) {
+        remove(key);
+        if (value == null)
+            return;
+
+        long byteSize = this.weigher.applyAsLong(value);
+        if (byteSize > this.maxBytes)
+            return; // It will never fit.
+
+        this.entries.put(new WeakKey<>(key, this.referenceQueue), new CacheEntry<>(value, byteSize, System.currentTimeMillis()));
+        this.currentBytes += byteSize;
+        trimToSize(this.maxBytes);
+    }
+
+    /**
+     * Removes the cached value for a key.
+     * @param key The key to remove.
+     * @return removedValue
+     */
+    public synchronized V remove(K key) {
+        CacheEntry<V> entry = this.entries.remove(new WeakKey<>(key, null));
+        if (entry == null)
+            return null;
+
+        this.currentBytes -= entry.byteSize;
+        return entry.value;
+    }
+
+    /**
+     * Removes everything from the cache.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.currentBytes = 0;
+    }
+
+    /**
+     * Gets the amount of cached values.
+     * @return size
+     */
+    public synchronized int size() {
+        cleanup();
+        return this.entries.size();
+    }
+
+    /**
+     * Sets the maximum amount of memory the cached values may use. Values will be evicted if they no longer fit.
+     * @param maxBytes The new memory budget.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Sets how long a value can go unused before it is removed.
+     * @param expireMillis The time in milliseconds, or NO_EXPIRY.
+     */
+    public synchronized void setExpireMillis(long expireMillis) {
+        this.expireMillis = expireMillis;
+        cleanup();
+    }
+
+    /**
+     * Gets the percentage of lookups which were found in the cache.
+     * @return hitRate
+     */
+    public synchronized double getHitRate() {
+        long total = this.hits + this.misses;
+        return total > 0 ? (double) this.hits / total : 0D;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return this.name + "[Entries: " + this.entries.size() + ", Memory: " + DataSizeUnit.formatSize(this.currentBytes) + "/" + DataSizeUnit.formatSize(this.maxBytes) + ", Hits: " + this.hits
+                + ", Misses: " + this.misses + ", Evictions: " + this.evictions + ", Hit Rate: " + Math.round(getHitRate() * 100) + "%]";
+    }
+
+    private void cleanup() {
+        // Remove entries whose keys have been garbage collected.
+        Reference<? extends K> reference;
+        while ((reference = this.referenceQueue.poll()) != null) {
+            CacheEntry<V> entry = this.entries.remove(reference);
+            if (entry != null)
+                this.currentBytes -= entry.byteSize;
+        }
+
+        // Remove expired entries. The least recently used entries are first, so we can stop at the first entry which has not expired.
+        if (this.expireMillis == NO_EXPIRY)
+            return;
+
+        long expireTime = System.currentTimeMillis() - this.expireMillis;
+        Iterator<CacheEntry<V>> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            CacheEntry<V> entry = iterator.next();
+            if (entry.lastAccess > expireTime)
+                break;
+
+            iterator.remove();
+            this.currentBytes -= entry.byteSize;
+            this.evictions++;
+        }
+    }
+
+    private void trimToSize(long maxBytes) {
+        Iterator<Entry<WeakKey<K>, CacheEntry<V>>> iterator = this.entries.entrySet().iterator();
+        while (this.currentBytes > maxBytes && iterator.hasNext()) {
+            CacheEntry<V> entry = iterator.next().getValue();
+            iterator.remove();
+            this.currentBytes -= entry.byteSize;
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Gets the amount of memory used by a BufferedImage's pixels.
+     * @param image The image to measure.
+     * @return byteSize
+     */
+    public static long getByteSize(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * image.getColorModel().getPixelSize() / 8;
+    }
+
+    /**
+     * Gets the amount of memory used by a JavaFX image's pixels.
+     * @param image The image to measure.
+     * @return byteSize
+     */
+    public static long getByteSize(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long byteSize;
+        private long lastAccess;
+
+        public CacheEntry(V value, long byteSize, long lastAccess) {
+            this.value = value;
+            this.byteSize = byteSize;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static class WeakKey<K> extends WeakReference<K> {
+        private final int hash;
+
+        public WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof WeakKey))
+                return false;
+
+            Object key = get();
+            return key != null && key == ((WeakKey<?>) other).get();
+        }
+    }
+}
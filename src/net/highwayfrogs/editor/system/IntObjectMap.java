@@ -0,0 +1,119 @@
+package net.highwayfrogs.editor.system;
+
+import java.util.Arrays;
+
+/**
+ * A replacement for HashMap<Integer, V> which avoids auto-boxing and doesn't allocate an entry per key.
+ * Clearing keeps the arrays, so it can be refilled without allocating.
+ */
+public class IntObjectMap<V> {
+    private int[] keys;
+    private Object[] values; // A null value means the slot is empty, so null values can't be stored.
+    private int size;
+
+    private static final int MIN_CAPACITY = 16; // Must be a power of two.
+
+    public IntObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the value of a key.
+     * @param key The key to get the value of.
+     * @return value, or null if the key isn't in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(key) & mask; this.values[i] != null; i = (i + 1) & mask)
+            if (this.keys[i] == key)
+                return (V) this.values[i];
+        return null;
+    }
+
+    /**
+     * Test if a key is in the map.
+     * @param key The key to test.
+     * @return containsKey
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Set the value of a key.
+     * @param key   The key to set.
+     * @param value The value to set. Cannot be null.
+     */
+    public void put(int key, V value) {
+        if (value == null)
+            throw new NullPointerException("IntObjectMap does not support null values.");
+
+        if ((this.size + 1) * 2 > this.keys.length)
+            resize(this.keys.length * 2);
+
+        int mask = this.keys.length - 1;
+        int i = hash(key) & mask;
+        while (this.values[i] != null && this.keys[i] != key)
+            i = (i + 1) & mask;
+
+        if (this.values[i] == null)
+            this.size++;
+
+        this.keys[i] = key;
+        this.values[i] = value;
+    }
+
+    /**
+     * Remove every key from the map.
+     */
+    public void clear() {
+        if (this.size == 0)
+            return;
+
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        this.keys = new int[newCapacity];
+        this.values = new Object[newCapacity];
+
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+
+            int index = hash(oldKeys[i]) & mask;
+            while (this.values[index] != null)
+                index = (index + 1) & mask;
+
+            this.keys[index] = oldKeys[i];
+            this.values[index] = oldValues[i];
+        }
+    }
+
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9; // Pointers are usually spaced evenly, so the bits are mixed to spread them out.
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -216,9 +216,7 @@ public class FileUtils3D {
             objWriter.write(Constants.NEWLINE);
         }
 
-        List<MAPPolygon> allPolygons = map.getAllPolygonsSafe();
-        if (exportTextures)
-            allPolygons.sort(Comparator.comparingInt(MAPPolygon::getOrderId)); // Groups textures together. Must happen before any other use of this.
+        List<MAPPolygon> allPolygons = exportTextures ? map.getPolygonsByOrder() : map.getAllPolygons(); // Ordering groups textures together.
 
         // Write Vertices.
         for (MAPPolygon poly : allPolygons) {
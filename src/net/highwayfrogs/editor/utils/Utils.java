@@ -22,6 +22,7 @@ import lombok.Cleanup;
 import lombok.SneakyThrows;
 import net.highwayfrogs.editor.Constants;
 import net.highwayfrogs.editor.gui.GUIMain;
+import net.highwayfrogs.editor.system.ImageCache;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -49,10 +50,9 @@ public class Utils {
     private static final ByteBuffer FLOAT_BUFFER = ByteBuffer.allocate(Constants.FLOAT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
     private static final CRC32 crc32 = new CRC32();
     private static final File[] EMPTY_FILE_ARRAY = new File[0];
-    private static final Map<BufferedImage, TextureCache> imageCacheMap = new HashMap<>();
+    private static final ImageCache<BufferedImage, Image> fxImageCache = new ImageCache<>("FX Image Cache", 64L * 1024 * 1024, TimeUnit.MINUTES.toMillis(5), ImageCache::getByteSize);
     private static final Map<Color, Image> colorImageCacheMap = new HashMap<>();
     private static final Map<Color, java.awt.Color> awtColorCacheMap = new HashMap<>();
-    private static final long IMAGE_CACHE_EXPIRE = TimeUnit.MINUTES.toMillis(5);
     private static final Map<Integer, List<Integer>> integerLists = new HashMap<>();
 
     /**
@@ -1208,11 +1208,18 @@ public class Utils {
      * @return convertedImage
      */
     public static Image toFXImage(BufferedImage image, boolean useCache) {
-        imageCacheMap.entrySet().removeIf(entry -> entry.getValue().hasExpired());
         if (!useCache)
             return SwingFXUtils.toFXImage(image, null);
 
-        return imageCacheMap.computeIfAbsent(image, bufferedImage -> new TextureCache(SwingFXUtils.toFXImage(bufferedImage, null))).getImage();
+        return fxImageCache.computeIfAbsent(image, bufferedImage -> SwingFXUtils.toFXImage(bufferedImage, null));
+    }
+
+    /**
+     * Gets the cache used by toFXImage.
+     * @return fxImageCache
+     */
+    public static ImageCache<BufferedImage, Image> getFXImageCache() {
+        return fxImageCache;
     }
 
     /**
@@ -1234,31 +1241,6 @@ public class Utils {
         return (int) Math.sqrt(i);
     }
 
-    private static class TextureCache {
-        private long lastUpdate;
-        private Image fxImage;
-
-        public TextureCache(Image fxImage) {
-            this.fxImage = fxImage;
-        }
-
-        /**
-         * Gets the image.
-         */
-        public Image getImage() {
-            this.lastUpdate = System.currentTimeMillis();
-            return fxImage;
-        }
-
-        /**
-         * Has this image expired?
-         * @return hasExpired
-         */
-        public boolean hasExpired() {
-            return (System.currentTimeMillis() - lastUpdate) > IMAGE_CACHE_EXPIRE;
-        }
-    }
-
     /**
      * Get an integer list with incrementing values.
      * @param size The size of the list